@@ -2,6 +2,7 @@ plugins {
 	java
 	id("org.springframework.boot") version "3.5.7"
 	id("io.spring.dependency-management") version "1.1.7"
+	id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "at.spengergasse"
@@ -28,18 +29,68 @@ dependencies {
 	implementation("org.springframework.boot:spring-boot-starter-data-jpa")
 	implementation("org.springframework.boot:spring-boot-starter-validation")
 	implementation("org.springframework.boot:spring-boot-starter-web")
+	implementation("org.springframework.boot:spring-boot-starter-actuator")
+	implementation("org.springframework.boot:spring-boot-starter-aop")
+	implementation("org.hibernate.orm:hibernate-jcache")
+	implementation("com.github.ben-manes.caffeine:jcache")
+	implementation("com.github.ben-manes.caffeine:caffeine")
+	implementation("org.hibernate.orm:hibernate-micrometer")
+	implementation("com.fasterxml.jackson.dataformat:jackson-dataformat-cbor")
+	implementation("com.fasterxml.jackson.dataformat:jackson-dataformat-smile")
 
 	compileOnly("org.projectlombok:lombok")
 	annotationProcessor("org.projectlombok:lombok")
 
 	runtimeOnly("com.h2database:h2")
 	runtimeOnly("org.postgresql:postgresql")
+	runtimeOnly("io.micrometer:micrometer-registry-prometheus")
 
 	developmentOnly("org.springframework.boot:spring-boot-devtools")
 	testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 	testImplementation("org.springframework.boot:spring-boot-starter-test")
+
+	jmh("com.fasterxml.jackson.core:jackson-databind")
+	jmh("com.fasterxml.jackson.dataformat:jackson-dataformat-cbor")
+	jmh("com.fasterxml.jackson.dataformat:jackson-dataformat-smile")
+}
+
+// JMH-Microbenchmarks (src/jmh/java): ./gradlew jmh, Ergebnisse in build/results/jmh
+jmh {
+	warmupIterations = 3
+	iterations = 5
+	fork = 1
+	resultFormat = "JSON"
 }
 
 tasks.withType<Test> {
 	useJUnitPlatform()
 }
+
+tasks.test {
+	useJUnitPlatform {
+		excludeTags("benchmark", "loadtest")
+	}
+}
+
+// Benchmarks und Lasttests laufen nicht im normalen Build, sondern über eigene Tasks:
+//   ./gradlew benchmark -Dbench.requests=5000
+//   ./gradlew loadTest -Dload.mix=mixed -Dload.rate=500 -Dload.duration=60
+fun registerTaggedTestTask(taskName: String, tag: String, propertyPrefix: String) =
+	tasks.register<Test>(taskName) {
+		description = "Runs the @Tag(\"$tag\") tests."
+		group = "verification"
+		testClassesDirs = sourceSets.test.get().output.classesDirs
+		classpath = sourceSets.test.get().runtimeClasspath
+		useJUnitPlatform {
+			includeTags(tag)
+		}
+		systemProperties(System.getProperties().stringPropertyNames()
+			.filter { it.startsWith(propertyPrefix) }
+			.associateWith { System.getProperty(it) })
+		systemProperty("${propertyPrefix}output.dir", layout.buildDirectory.dir(taskName).get().asFile.absolutePath)
+		testLogging.showStandardStreams = true
+		outputs.upToDateWhen { false }
+	}
+
+registerTaggedTestTask("benchmark", "benchmark", "bench.")
+registerTaggedTestTask("loadTest", "loadtest", "load.")
@@ -0,0 +1,58 @@
+package at.spengergasse.Mini.benchmark;
+
+import at.spengergasse.Mini.persistence.ProductRepository;
+import at.spengergasse.Mini.persistence.ShopRepository;
+import at.spengergasse.Mini.validation.Guard;
+import at.spengergasse.Mini.validation.NameIndex;
+import at.spengergasse.Mini.viewmodel.ProductRequest;
+import at.spengergasse.Mini.viewmodel.ShopRequest;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+// Guard.validateProduct / validateShop ohne Datenbank:
+// "coldIndex" fragt bei jedem Aufruf das (gestubbte) Repository, "warmIndex" beantwortet
+// freie Namen aus dem NameIndex
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GuardBenchmark {
+
+    private Guard coldGuard;
+    private Guard warmGuard;
+
+    private final ProductRequest productRequest = new ProductRequest("Sword", 4999L);
+    private final ShopRequest shopRequest = new ShopRequest("WeaponShop");
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        ProductRepository productRepository = Stubs.repository(ProductRepository.class);
+        ShopRepository shopRepository = Stubs.repository(ShopRepository.class);
+
+        coldGuard = new Guard(productRepository, new NameIndex(productRepository, shopRepository));
+
+        NameIndex warmIndex = new NameIndex(productRepository, shopRepository);
+        Field enabled = NameIndex.class.getDeclaredField("enabled");
+        enabled.setAccessible(true);
+        enabled.setBoolean(warmIndex, true);
+        warmIndex.warmUp();
+        warmGuard = new Guard(productRepository, warmIndex);
+    }
+
+    @Benchmark
+    public void validateProductColdIndex() {
+        coldGuard.validateProduct(productRequest, null);
+    }
+
+    @Benchmark
+    public void validateProductWarmIndex() {
+        warmGuard.validateProduct(productRequest, null);
+    }
+
+    @Benchmark
+    public void validateShop() {
+        warmGuard.validateShop(shopRequest);
+    }
+}
@@ -0,0 +1,66 @@
+package at.spengergasse.Mini.benchmark;
+
+import at.spengergasse.Mini.model.Product;
+import at.spengergasse.Mini.model.Shop;
+import at.spengergasse.Mini.viewmodel.ProductView;
+import at.spengergasse.Mini.viewmodel.ShopView;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Jackson-Serialisierung: Entity-Graph (früher von den GET-Endpunkten geliefert)
+// gegen die flachen Projektionen (ShopView/ProductView), die sie heute liefern
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JacksonBenchmark {
+
+    @Param({"10", "1000"})
+    public int products;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private Shop shop;
+    private Product product;
+    private ShopView shopView;
+    private ProductView productView;
+
+    @Setup
+    public void setUp() {
+        shop = new Shop("BenchShop");
+        for (int i = 0; i < products; i++) {
+            product = new Product("Product-" + i, 100 + i, shop);
+            product.setId((long) i + 1);
+        }
+        shop.setId(1L);
+
+        List<ProductView> views = new ArrayList<>(products);
+        for (Product p : shop.getProducts()) views.add(ProductView.from(p));
+        shopView = ShopView.from(shop).withProducts(views);
+        productView = ProductView.from(product);
+    }
+
+    @Benchmark
+    public byte[] serializeShop() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(shop);
+    }
+
+    @Benchmark
+    public byte[] serializeProduct() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(product);
+    }
+
+    @Benchmark
+    public byte[] serializeShopView() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(shopView);
+    }
+
+    @Benchmark
+    public byte[] serializeProductView() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(productView);
+    }
+}
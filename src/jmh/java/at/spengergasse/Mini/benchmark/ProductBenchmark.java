@@ -0,0 +1,46 @@
+package at.spengergasse.Mini.benchmark;
+
+import at.spengergasse.Mini.model.Product;
+import at.spengergasse.Mini.model.Shop;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Kosten der Produkt-Erzeugung; UUID.randomUUID() (SecureRandom) im BaseEntity-Konstruktor
+// wird separat gemessen, um seinen Anteil sichtbar zu machen
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProductBenchmark {
+
+    private Product product;
+
+    @Setup
+    public void setUp() {
+        product = new Product("Sword", 4999, new Shop("WeaponShop"));
+    }
+
+    @Benchmark
+    public UUID randomUuid() {
+        return UUID.randomUUID();
+    }
+
+    @Benchmark
+    public Product newProduct() {
+        return new Product("Sword", 4999);
+    }
+
+    @Benchmark
+    public Product newProductForShopReference() {
+        return Product.forShopReference("Sword", 4999, product.getShop());
+    }
+
+    // Update in place: keine neue Instanz, keine neue UUID
+    @Benchmark
+    public Product updateInPlace() {
+        product.update("Sword", 5999);
+        return product;
+    }
+}
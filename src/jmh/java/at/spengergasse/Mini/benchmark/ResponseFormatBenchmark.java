@@ -0,0 +1,81 @@
+package at.spengergasse.Mini.benchmark;
+
+import at.spengergasse.Mini.viewmodel.ProductView;
+import at.spengergasse.Mini.viewmodel.ShopView;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Antwortformate der GET-Endpunkte (ShopView mit Produkten): Serialisieren, Deserialisieren und Payload-Größe
+// je Format; JSON_GZIP = JSON inkl. gzip/gunzip, so wie es über die Leitung geht.
+// Die Payload-Größen stehen einmal pro Trial in der Ausgabe ("payload ...").
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResponseFormatBenchmark {
+
+    public enum Format { JSON, JSON_GZIP, CBOR, SMILE }
+
+    @Param({"10", "1000"})
+    public int products;
+
+    @Param({"JSON", "JSON_GZIP", "CBOR", "SMILE"})
+    public Format format;
+
+    private ObjectMapper mapper;
+    private ShopView shopView;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper json = new ObjectMapper();
+        mapper = switch (format) {
+            case JSON, JSON_GZIP -> json;
+            case CBOR -> json.copyWith(new CBORFactory());
+            case SMILE -> json.copyWith(new SmileFactory());
+        };
+
+        List<ProductView> views = new ArrayList<>(products);
+        for (int i = 0; i < products; i++) {
+            views.add(new ProductView((long) i + 1, UUID.randomUUID(), "Product-" + i, 100 + i, 1L));
+        }
+        shopView = new ShopView(1L, UUID.randomUUID(), "BenchShop", views);
+
+        payload = serialize();
+        System.out.printf("%npayload %s products=%d: %d bytes%n", format, products, payload.length);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        if (format != Format.JSON_GZIP) return mapper.writeValueAsBytes(shopView);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(bytes)) {
+            mapper.writeValue(gzip, shopView);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public ShopView deserialize() throws IOException {
+        if (format != Format.JSON_GZIP) return mapper.readValue(payload, ShopView.class);
+
+        try (InputStream gunzip = new GZIPInputStream(new ByteArrayInputStream(payload))) {
+            return mapper.readValue(gunzip, ShopView.class);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package at.spengergasse.Mini.benchmark;
+
+import at.spengergasse.Mini.model.Product;
+import at.spengergasse.Mini.model.Shop;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Shop.addProduct bei wachsender Collection-Größe: die Kosten pro add sollen flach bleiben
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ShopBenchmark {
+
+    private static final int BATCH = 1000;
+
+    @Param({"100", "10000", "100000"})
+    public int size;
+
+    private Shop shop;
+    private Product existing;
+    private List<Product> fresh;
+
+    @Setup(Level.Trial)
+    public void fillShop() {
+        shop = new Shop("BenchShop");
+        for (int i = 0; i < size; i++) {
+            existing = new Product("Product-" + i, 1, shop);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void createFreshProducts() {
+        fresh = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            fresh.add(new Product("Fresh-" + i, 1));
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void truncateShop() {
+        // zurück auf die Ausgangsgröße, ohne remove(Object)-Scan
+        shop.getProducts().subList(size, shop.getProducts().size()).clear();
+    }
+
+    // Neues Produkt hinzufügen
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public Shop addNewProducts() {
+        for (Product product : fresh) {
+            shop.addProduct(product);
+        }
+        return shop;
+    }
+
+    // Bereits enthaltenes Produkt erneut hinzufügen (früher: List.contains über die ganze Liste)
+    @Benchmark
+    public Shop addExistingProduct() {
+        shop.addProduct(existing);
+        return shop;
+    }
+}
@@ -0,0 +1,30 @@
+package at.spengergasse.Mini.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Optional;
+
+// Minimale Repository-Stubs für Microbenchmarks ohne Spring-Kontext und ohne Datenbank:
+// Optional -> leer, List -> leer, boolean -> false, sonst null
+final class Stubs {
+
+    private Stubs() {}
+
+    static <T> T repository(Class<T> type) {
+        Object stub = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Class<?> returnType = method.getReturnType();
+            return switch (method.getName()) {
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+                case "toString" -> type.getSimpleName() + "Stub";
+                default -> {
+                    if (returnType == Optional.class) yield Optional.empty();
+                    if (returnType == List.class) yield List.of();
+                    if (returnType == boolean.class) yield false;
+                    yield null;
+                }
+            };
+        });
+        return type.cast(stub);
+    }
+}
@@ -2,6 +2,9 @@ package at.spengergasse.Mini;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Bean;
+
+import java.time.Clock;
 
 @SpringBootApplication
 public class MiniShopApplication {
@@ -10,4 +13,10 @@ public class MiniShopApplication {
 		SpringApplication.run(MiniShopApplication.class, args);
 	}
 
+	// Zeitquelle (UTC) für zeitabhängige Zähler, in Tests per @MockitoBean / Clock.fixed ersetzbar
+	@Bean
+	Clock clock() {
+		return Clock.systemUTC();
+	}
+
 }
@@ -0,0 +1,314 @@
+package at.spengergasse.Mini.controller;
+
+// Idempotency-Key für POST-Endpunkte
+// ---------------------------------
+// POST ist nicht idempotent: wiederholt ein Client nach einem Timeout, wird erneut geprüft und
+// eingefügt (oder er scheitert am eindeutigen Namen). Mit Header "Idempotency-Key: <id>" gilt:
+//
+//   1. Erster Request mit dem Key    -> wird ausgeführt, Status/Header/Body werden gespeichert
+//   2. Wiederholung (gleicher Body)  -> gespeicherte Antwort, Header Idempotent-Replayed: true
+//   3. Gleichzeitige Wiederholung    -> wartet kurz auf das laufende Original statt selbst auszuführen;
+//                                       dauert es länger, 409 mit Retry-After (der Filter läuft vor der
+//                                       Admission Control, lange wartende Threads würden keinen Bulkhead belegen)
+//   4. Gleicher Key, anderer Body    -> 422
+//
+// Gespeichert werden nur deterministische Ergebnisse (2xx, 4xx außer 409/429). Nach 5xx, 409 oder
+// einer Exception wird der Key wieder freigegeben, ein wartendes Duplikat führt dann selbst aus.
+//
+// Der Speicher ist begrenzt (Caffeine, maximumSize) und verwirft Einträge nach einer Ablaufzeit.
+// Keys gelten je Endpunkt (Pfad), nicht global.
+//
+// Der Body wird für den Fingerprint vollständig gepuffert, daher höchstens max-body-bytes: größere
+// Requests bekommen 413, per Content-Length schon vor dem Lesen, sonst sobald die Grenze überschritten ist.
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Pattern;
+
+@Component
+class IdempotencyFilter extends OncePerRequestFilter {
+
+    static final String HEADER = "Idempotency-Key";
+    static final String REPLAYED = "Idempotent-Replayed";
+
+    // POST /api/shop, /api/shop/{shopId}/products, /api/shop/products
+    private static final Pattern PATHS = Pattern.compile("/api/shop(/\\d+/products|/products)?/?");
+
+    // Werden vom Container selbst gesetzt und nicht mit gespeichert
+    private static final Set<String> SKIPPED_HEADERS = Set.of(
+            HttpHeaders.CONTENT_TYPE.toLowerCase(), HttpHeaders.CONTENT_LENGTH.toLowerCase(),
+            HttpHeaders.TRANSFER_ENCODING.toLowerCase(), HttpHeaders.DATE.toLowerCase());
+
+    private record StoredResponse(String fingerprint, int status, String contentType,
+                                  Map<String, List<String>> headers, byte[] body) {}
+
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry registry;
+    private final Cache<String, CompletableFuture<StoredResponse>> responses;
+    private final long waitMillis;
+    private final int maxBodyBytes;
+
+    IdempotencyFilter(ObjectMapper objectMapper,
+                      MeterRegistry registry,
+                      @Value("${minishop.idempotency.max-entries:100000}") long maxEntries,
+                      @Value("${minishop.idempotency.ttl-minutes:1440}") long ttlMinutes,
+                      @Value("${minishop.idempotency.wait-timeout-ms:2000}") long waitMillis,
+                      @Value("${minishop.idempotency.max-body-bytes:65536}") int maxBodyBytes) {
+        this.objectMapper = objectMapper;
+        this.registry = registry;
+        this.waitMillis = waitMillis;
+        this.maxBodyBytes = maxBodyBytes;
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .build();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod())
+                || request.getHeader(HEADER) == null
+                || !PATHS.matcher(path(request)).matches();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String key = request.getHeader(HEADER);
+        if (key.isBlank() || key.length() > 255) {
+            problem(response, HttpStatus.BAD_REQUEST, HEADER + " muss 1 bis 255 Zeichen lang sein!");
+            return;
+        }
+
+        byte[] body = request.getContentLengthLong() > maxBodyBytes ? null : readBody(request);
+        if (body == null) {
+            count("too-large");
+            problem(response, HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Requests mit " + HEADER + " dürfen höchstens " + maxBodyBytes + " Bytes groß sein!");
+            return;
+        }
+
+        CachedBodyRequest cachedRequest = new CachedBodyRequest(request, body);
+        String fingerprint = fingerprint(cachedRequest);
+        String storeKey = path(request) + "\n" + key;
+
+        while (true) {
+            CompletableFuture<StoredResponse> own = new CompletableFuture<>();
+            CompletableFuture<StoredResponse> existing = responses.asMap().putIfAbsent(storeKey, own);
+            if (existing == null) {
+                execute(cachedRequest, response, chain, storeKey, fingerprint, own);
+                return;
+            }
+
+            StoredResponse stored;
+            try {
+                stored = existing.get(waitMillis, TimeUnit.MILLISECONDS);
+            } catch (ExecutionException e) {
+                continue; // Original ohne speicherbares Ergebnis, Key ist wieder frei
+            } catch (TimeoutException e) {
+                count("timeout");
+                response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, (waitMillis + 999) / 1000)));
+                problem(response, HttpStatus.CONFLICT, "Ein Request mit diesem " + HEADER + " wird noch verarbeitet!");
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ServletException(e);
+            }
+
+            if (!stored.fingerprint().equals(fingerprint)) {
+                count("mismatch");
+                problem(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                        HEADER + " wurde bereits für einen anderen Request verwendet!");
+                return;
+            }
+
+            count("replayed");
+            replay(stored, response);
+            return;
+        }
+    }
+
+    private void execute(CachedBodyRequest request, HttpServletResponse response, FilterChain chain,
+                         String storeKey, String fingerprint, CompletableFuture<StoredResponse> own)
+            throws ServletException, IOException {
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        try {
+            chain.doFilter(request, wrapper);
+        } catch (ServletException | IOException | RuntimeException e) {
+            release(storeKey, own, e);
+            throw e;
+        }
+
+        int status = wrapper.getStatus();
+        if (isReplayable(status)) {
+            own.complete(new StoredResponse(fingerprint, status, wrapper.getContentType(),
+                    headers(wrapper), wrapper.getContentAsByteArray()));
+            count("executed");
+        } else {
+            release(storeKey, own, new IllegalStateException("Status " + status + " wird nicht gespeichert"));
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    // Erst entfernen, dann abschließen: Wartende finden beim nächsten Versuch einen freien Key
+    private void release(String storeKey, CompletableFuture<StoredResponse> own, Throwable cause) {
+        responses.asMap().remove(storeKey, own);
+        own.completeExceptionally(cause);
+        count("released");
+    }
+
+    private static boolean isReplayable(int status) {
+        return status < 500 && status != HttpStatus.CONFLICT.value() && status != HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+
+    private static Map<String, List<String>> headers(HttpServletResponse response) {
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        for (String name : response.getHeaderNames()) {
+            if (!SKIPPED_HEADERS.contains(name.toLowerCase())) {
+                headers.put(name, new ArrayList<>(response.getHeaders(name)));
+            }
+        }
+        return headers;
+    }
+
+    private static void replay(StoredResponse stored, HttpServletResponse response) throws IOException {
+        response.setStatus(stored.status());
+        stored.headers().forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        response.setHeader(REPLAYED, "true");
+        response.setContentLength(stored.body().length);
+        response.getOutputStream().write(stored.body());
+    }
+
+    private void problem(HttpServletResponse response, HttpStatus status, String detail) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_PROBLEM_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), ProblemDetail.forStatusAndDetail(status, detail));
+    }
+
+    private void count(String outcome) {
+        registry.counter("minishop.idempotency", "outcome", outcome).increment();
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    // Höchstens maxBodyBytes + 1 lesen (auch ohne oder mit falscher Content-Length), null wenn zu groß
+    private byte[] readBody(HttpServletRequest request) throws IOException {
+        byte[] body = request.getInputStream().readNBytes(maxBodyBytes + 1);
+        return body.length > maxBodyBytes ? null : body;
+    }
+
+    // Query (z.B. ?shopId=) + Body: gleicher Key mit anderem Inhalt wird erkannt
+    private static String fingerprint(CachedBodyRequest request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            if (request.getQueryString() != null) {
+                digest.update(request.getQueryString().getBytes(StandardCharsets.UTF_8));
+            }
+            digest.update((byte) '\n');
+            digest.update(request.body);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Body einmal gelesen (für den Fingerprint), danach beliebig oft für Spring MVC bereitstellen
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return in.read(buffer, offset, length);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // Body liegt vollständig im Speicher: sofort lesbar und sofort zu Ende
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    if (!isAsyncStarted()) {
+                        throw new IllegalStateException("ReadListener nur im asynchronen Modus erlaubt!");
+                    }
+                    try {
+                        if (!isFinished()) listener.onDataAvailable();
+                        listener.onAllDataRead();
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding)));
+        }
+    }
+}
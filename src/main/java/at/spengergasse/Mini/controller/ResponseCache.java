@@ -0,0 +1,190 @@
+package at.spengergasse.Mini.controller;
+
+// Conditional GET & Response Cache
+// ---------------------------------
+// ETag = Katalog-Version des Shops (siehe CatalogVersions) + Format + Content-Coding,
+// z.B. W/"1a2b-7-42-cbor-gz": jede Repräsentation hat ihr eigenes Tag (RFC 9110, 8.8.3)
+//
+// Ablauf:
+//   1. Version lesen (VOR dem Laden der Daten)
+//   2. If-None-Match passt        -> 304 Not Modified, ohne Datenbank und ohne Jackson
+//   3. Bytes zu dieser Version im Cache -> 200 mit den fertigen Bytes
+//   4. Sonst laden, serialisieren, Bytes mit ETag cachen
+//      Gleichzeitige Misses auf denselben Schlüssel und dieselbe Version laden nur einmal (SingleFlight)
+//
+// Format und Kompression:
+//   - Accept wählt JSON, CBOR oder Smile (ResponseFormat), je Format ein eigener Cache-Eintrag
+//   - Ab server.compression.min-response-size wird der Body einmal beim Cachen gzip-komprimiert;
+//     mit Accept-Encoding: gzip gehen diese Bytes direkt raus (Content-Encoding gesetzt -> Tomcat
+//     komprimiert nicht noch einmal pro Request)
+//   - Vary: Accept, Accept-Encoding für Proxies und Client-Caches
+//
+// Der Cache ist nach Bytes begrenzt (Caffeine, maximumWeight).
+//
+// Versionen und Bytes leben in dieser JVM: Schreibzugriffe einer anderen Instanz zählen sie nicht hoch.
+// Deshalb nur mit minishop.single-instance=true; sonst wird jede Antwort frisch serialisiert, ohne ETag.
+
+import at.spengergasse.Mini.service.CatalogVersions;
+import at.spengergasse.Mini.support.SingleFlight;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+@Component
+class ResponseCache {
+
+    // gzipped == null: Body unter der Schwelle, wird unkomprimiert ausgeliefert
+    private record CachedBody(String version, byte[] body, byte[] gzipped) {
+
+        int weight() {
+            return body.length + (gzipped == null ? 0 : gzipped.length);
+        }
+    }
+
+    private final ResponseFormats formats;
+    private final CatalogVersions catalogVersions;
+    private final SingleFlight singleFlight;
+    private final long minGzipBytes;
+    private final boolean singleInstance;
+    private final Cache<String, CachedBody> cache;
+
+    ResponseCache(ResponseFormats formats,
+                  CatalogVersions catalogVersions,
+                  SingleFlight singleFlight,
+                  @Value("${minishop.response-cache.max-bytes:67108864}") long maxBytes,
+                  @Value("${server.compression.min-response-size:2KB}") DataSize minGzipSize,
+                  @Value("${minishop.single-instance:true}") boolean singleInstance) {
+        this.formats = formats;
+        this.catalogVersions = catalogVersions;
+        this.singleFlight = singleFlight;
+        this.minGzipBytes = minGzipSize.toBytes();
+        this.singleInstance = singleInstance;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, CachedBody value) -> key.length() + value.weight())
+                .build();
+    }
+
+    ResponseEntity<byte[]> get(Long shopId, String key, HttpHeaders request, Supplier<?> loader) {
+        ResponseFormat format = ResponseFormat.negotiate(request.getFirst(HttpHeaders.ACCEPT));
+        if (!singleInstance) {
+            // Kompression übernimmt dann Tomcat (server.compression)
+            return ResponseEntity.ok()
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .contentType(format.mediaType())
+                    .body(serialize(format, loader.get()));
+        }
+
+        boolean gzip = acceptsGzip(request.getFirst(HttpHeaders.ACCEPT_ENCODING));
+        String version = catalogVersions.etag(shopId);
+        String etag = etag(version, format, gzip);
+
+        if (matches(request.getFirst(HttpHeaders.IF_NONE_MATCH), etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+
+        String formatKey = format.name() + ":" + key;
+
+        CachedBody cached = cache.getIfPresent(formatKey);
+        if (cached == null || !cached.version().equals(version)) {
+            cached = singleFlight.execute("response-cache", List.of(formatKey, version), () -> {
+                byte[] body = serialize(format, loader.get());
+                CachedBody loaded = new CachedBody(version, body, body.length >= minGzipBytes ? gzip(body) : null);
+                cache.put(formatKey, loaded);
+                return loaded;
+            });
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(etag)
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)
+                .contentType(format.mediaType());
+        if (cached.gzipped() != null && gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(cached.gzipped());
+        }
+        return response.body(cached.body());
+    }
+
+    // W/"epoch-shop-version" -> W/"epoch-shop-version-cbor-gz"; "-gz" steht für die ausgehandelte Kodierung
+    // (auch wenn ein kleiner Body unkomprimiert bleibt, das Tag unterscheidet nur die Varianten)
+    private static String etag(String version, ResponseFormat format, boolean gzip) {
+        String suffix = "-" + format.name().toLowerCase(Locale.ROOT) + (gzip ? "-gz" : "");
+        return version.substring(0, version.length() - 1) + suffix + "\"";
+    }
+
+    private byte[] serialize(ResponseFormat format, Object value) {
+        try {
+            return formats.mapper(format).writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    // Accept-Encoding: "gzip, deflate, br" oder mit Gewichtung "gzip;q=0.8"; q=0 heißt ausdrücklich nein
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) return false;
+
+        for (String candidate : acceptEncoding.split(",")) {
+            String[] parts = candidate.trim().split(";");
+            String coding = parts[0].trim();
+            if (!coding.equalsIgnoreCase("gzip") && !coding.equals("*")) continue;
+
+            double quality = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (quality > 0) return true;
+        }
+        return false;
+    }
+
+    // If-None-Match: "*" oder Liste von ETags, Vergleich schwach (W/ wird ignoriert)
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) return false;
+
+        String expected = stripWeak(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || stripWeak(tag).equals(expected)) return true;
+        }
+        return false;
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
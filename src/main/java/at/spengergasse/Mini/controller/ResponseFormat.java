@@ -0,0 +1,65 @@
+package at.spengergasse.Mini.controller;
+
+import at.spengergasse.Mini.exceptions.NotAcceptableException;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+// Antwortformate der ShopController-Endpunkte, ausgewählt über den Accept-Header
+// JSON ist Default bei fehlendem Accept und bei Wildcards (*/*, application/*); nennt der Header
+// nur Typen, die keines der Formate abdecken (oder ist er ungültig) -> 406 (NotAcceptableException)
+
+enum ResponseFormat {
+
+    JSON(MediaType.APPLICATION_JSON),
+    CBOR(MediaType.APPLICATION_CBOR),
+    SMILE(new MediaType("application", "x-jackson-smile"));
+
+    static final String SMILE_VALUE = "application/x-jackson-smile";
+
+    private final MediaType mediaType;
+
+    ResponseFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    MediaType mediaType() {
+        return mediaType;
+    }
+
+    static ResponseFormat negotiate(String accept) {
+        return negotiate(accept, JSON.mediaType);
+    }
+
+    // Höchste Qualität gewinnt, bei Gleichstand ein konkreter Typ vor einem Wildcard (*/*, application/*)
+    // json: Medientyp, unter dem der Endpunkt JSON ausliefert (beim Export application/x-ndjson)
+    static ResponseFormat negotiate(String accept, MediaType json) {
+        if (accept == null || accept.isBlank()) return JSON;
+
+        ResponseFormat best = null;
+        double bestQuality = 0;
+        boolean bestIsWildcard = true;
+        try {
+            for (MediaType type : MediaType.parseMediaTypes(accept)) {
+                double quality = type.getQualityValue();
+                boolean wildcard = type.isWildcardType() || type.isWildcardSubtype();
+                if (quality <= 0 || quality < bestQuality || (quality == bestQuality && (wildcard || !bestIsWildcard))) {
+                    continue;
+                }
+                for (ResponseFormat format : values()) {
+                    if (type.includes(format == JSON ? json : format.mediaType)) {
+                        best = format;
+                        bestQuality = quality;
+                        bestIsWildcard = wildcard;
+                        break;
+                    }
+                }
+            }
+        } catch (InvalidMediaTypeException e) {
+            throw new NotAcceptableException("Ungültiger Accept-Header: " + e.getMessage());
+        }
+        if (best == null) {
+            throw new NotAcceptableException("Kein unterstütztes Format in Accept: " + accept);
+        }
+        return best;
+    }
+}
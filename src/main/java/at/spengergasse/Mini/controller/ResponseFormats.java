@@ -0,0 +1,50 @@
+package at.spengergasse.Mini.controller;
+
+// Binäre Antwortformate (CBOR, Smile)
+// ---------------------------------
+// Interne Service-zu-Service-Consumer ziehen große Produktlisten; JSON-Text kostet dort beim
+// Serialisieren, Parsen und auf dem Netz. Mit Accept: application/cbor oder application/x-jackson-smile
+// liefert jeder ShopController-Endpunkt dasselbe Datenmodell binär codiert.
+//
+// - Die Mapper sind Kopien des von Spring Boot konfigurierten ObjectMappers (Module, spring.jackson.*),
+//   nur mit anderer Factory
+// - Als HttpMessageConverter-Beans ersetzen sie die Default-Konverter von Spring MVC, die ohne
+//   die Boot-Konfiguration gebaut werden; das gilt auch für Request-Bodies (Content-Type)
+// - ResponseCache und der Export serialisieren selbst und holen sich den Mapper hier
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+@Configuration(proxyBeanMethods = false)
+class ResponseFormats {
+
+    private final Map<ResponseFormat, ObjectMapper> mappers = new EnumMap<>(ResponseFormat.class);
+
+    ResponseFormats(ObjectMapper objectMapper) {
+        mappers.put(ResponseFormat.JSON, objectMapper);
+        mappers.put(ResponseFormat.CBOR, objectMapper.copyWith(new CBORFactory()));
+        mappers.put(ResponseFormat.SMILE, objectMapper.copyWith(new SmileFactory()));
+    }
+
+    ObjectMapper mapper(ResponseFormat format) {
+        return mappers.get(format);
+    }
+
+    @Bean
+    MappingJackson2CborHttpMessageConverter cborHttpMessageConverter() {
+        return new MappingJackson2CborHttpMessageConverter(mapper(ResponseFormat.CBOR));
+    }
+
+    @Bean
+    MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter() {
+        return new MappingJackson2SmileHttpMessageConverter(mapper(ResponseFormat.SMILE));
+    }
+}
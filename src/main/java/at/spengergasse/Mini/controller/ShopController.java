@@ -138,16 +138,30 @@ package at.spengergasse.Mini.controller;
 //   - Example: {"title": "Buy milk"} -> TodoRequest object
 //   - Validation happens AFTER deserialization (@Valid triggers bean validation)
 
-import at.spengergasse.Mini.model.Product;
-import at.spengergasse.Mini.model.Shop;
 import at.spengergasse.Mini.service.ProductService;
 import at.spengergasse.Mini.service.ShopService;
+import at.spengergasse.Mini.service.WriteBehindQueue;
+import at.spengergasse.Mini.support.Bulkhead;
+import at.spengergasse.Mini.support.EndpointClass;
+import at.spengergasse.Mini.viewmodel.BulkImportResponse;
+import at.spengergasse.Mini.viewmodel.ProductPatchRequest;
 import at.spengergasse.Mini.viewmodel.ProductRequest;
+import at.spengergasse.Mini.viewmodel.ProductView;
 import at.spengergasse.Mini.viewmodel.ShopRequest;
+import at.spengergasse.Mini.viewmodel.ShopStatsView;
+import at.spengergasse.Mini.viewmodel.ShopView;
+import at.spengergasse.Mini.viewmodel.WriteStatusView;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedOutputStream;
+import java.net.URI;
 import java.util.List;
 
 @RestController
@@ -157,61 +171,197 @@ public class ShopController {
 
     private final ShopService shopService;
     private final ProductService productService;
+    private final ResponseFormats formats;
+    private final ResponseCache responseCache;
+    private final WriteBehindQueue writeBehind;
 
-    // Hole einen einzelnen Shop
+    // Opt-in für Write-Behind über "Prefer: respond-async" (RFC 7240), auch zusammen mit anderen
+    // Präferenzen ("respond-async, wait=10"); ohne aktivierte Queue wird synchron geantwortet
+    private static final String PREFER = "Prefer";
+
+    // Hole einen einzelnen Shop (ETag, 304 bei If-None-Match; Format über Accept, siehe ResponseCache)
+    @Bulkhead(EndpointClass.READ)
     @GetMapping("/{id}")
-    public Shop getShop(@PathVariable Long id) {
-        return shopService.getShopById(id);
+    public ResponseEntity<byte[]> getShop(@PathVariable Long id,
+                                          @RequestHeader HttpHeaders headers) {
+        return responseCache.get(id, "shop:" + id, headers, () -> shopService.getShopView(id));
     }
 
     // Erstelle einen neuen Shop
+    @Bulkhead(EndpointClass.WRITE)
     @PostMapping
-    public Shop createShop(@RequestBody @Valid ShopRequest request) {
-        return shopService.createShop(request);
+    public ShopView createShop(@RequestBody @Valid ShopRequest request) {
+        return ShopView.from(shopService.createShop(request));
+    }
+
+    // Katalog-Statistik eines Shops: Anzahl, min/max/Durchschnitt/Summe der Preise, Änderungen je Stunde/Tag
+    // Liest nur die mitgeführten Zähler (für Dashboards, die alle Shops im Sekundentakt abfragen)
+    @Bulkhead(EndpointClass.READ)
+    @GetMapping("/{id}/stats")
+    public ShopStatsView getShopStats(@PathVariable Long id) {
+        return shopService.getShopStats(id);
     }
 
     // Lösche einen Shop
+    @Bulkhead(EndpointClass.EXPENSIVE)
     @DeleteMapping("/{id}")
     public void deleteShop(@PathVariable Long id) {
         shopService.deleteShop(id);
     }
 
     // Produkt zu Shop hinzufügen (ruft ShopService.addProductToShop auf)
+    // Asynchron: prüfen, einreihen, 202 + Tracking-ID (WriteBehindQueue.submitAdd)
+    @Bulkhead(EndpointClass.WRITE)
     @PostMapping("/{shopId}/products")
-    public Product addProductToShop(@PathVariable Long shopId, @RequestBody @Valid ProductRequest request) {
-        return shopService.addProductToShop(shopId, request);
+    public ResponseEntity<?> addProductToShop(@PathVariable Long shopId,
+                                              @RequestBody @Valid ProductRequest request,
+                                              @RequestHeader(value = PREFER, required = false) String prefer) {
+        if (respondAsync(prefer)) return accepted(writeBehind.submitAdd(shopId, request));
+        return ResponseEntity.ok(ProductView.from(shopService.addProductToShop(shopId, request)));
+    }
+
+    // Viele Produkte auf einmal importieren (JDBC-Batching, Fehler je Eintrag im Ergebnis)
+    @Bulkhead(EndpointClass.EXPENSIVE)
+    @PostMapping("/{shopId}/products/bulk")
+    public BulkImportResponse importProductsToShop(@PathVariable Long shopId,
+                                                   @RequestBody List<ProductRequest> requests) {
+        return shopService.importProducts(shopId, requests);
     }
 
     // Produkt aus Shop entfernen (ShopService.removeProductFromShop)
+    @Bulkhead(EndpointClass.WRITE)
     @DeleteMapping("/{shopId}/products/{productId}")
     public void removeProductFromShop(@PathVariable Long shopId, @PathVariable Long productId) {
         shopService.removeProductFromShop(shopId, productId);
     }
 
-    // Alle Produkte eines Shops holen
+    // Produkte eines Shops seitenweise holen (Keyset-Pagination)
+    // ?sort=id|name|price&size=50, nächste Seite über ?cursor=<nextCursor>
+    @Bulkhead(EndpointClass.READ)
     @GetMapping("/{shopId}/products")
-    public List<Product> getAllProductsFromShop(@PathVariable Long shopId) {
-        return shopService.getAllProductsFromShop(shopId);
+    public ResponseEntity<byte[]> getProductsFromShop(@PathVariable Long shopId,
+                                                      @RequestParam(required = false) String sort,
+                                                      @RequestParam(required = false) String cursor,
+                                                      @RequestParam(required = false) Integer size,
+                                                      @RequestHeader HttpHeaders headers) {
+        String key = "products:" + shopId + ":" + sort + ":" + cursor + ":" + size;
+        return responseCache.get(shopId, key, headers,
+                () -> shopService.getProductPage(shopId, sort, cursor, size));
+    }
+
+    // Produkte in einem Preisbereich (Cent, inklusive), sortiert nach Preis
+    // ?min=1000&max=5000&offset=0&size=50
+    @Bulkhead(EndpointClass.READ)
+    @GetMapping("/{shopId}/products/price-range")
+    public ResponseEntity<byte[]> getProductsInPriceRange(@PathVariable Long shopId,
+                                                          @RequestParam long min,
+                                                          @RequestParam long max,
+                                                          @RequestParam(defaultValue = "0") int offset,
+                                                          @RequestParam(required = false) Integer size,
+                                                          @RequestHeader HttpHeaders headers) {
+        String key = "price-range:" + shopId + ":" + min + ":" + max + ":" + offset + ":" + size;
+        return responseCache.get(shopId, key, headers,
+                () -> shopService.getProductsInPriceRange(shopId, min, max, offset, size));
+    }
+
+    // Gesamten Katalog eines Shops als NDJSON streamen (eine JSON-Zeile pro Produkt)
+    // Mit Accept: application/cbor bzw. application/x-jackson-smile stattdessen eine Folge binärer Werte
+    // (CBOR Sequence, RFC 8742 / Smile-Dokumente hintereinander), lesbar z.B. mit ObjectReader.readValues
+    // Die Response wird während des Lesens geschrieben, es liegt nie der ganze Katalog im Speicher
+    @Bulkhead(EndpointClass.EXPENSIVE)
+    @GetMapping(value = "/{shopId}/products/export",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, ResponseFormat.SMILE_VALUE})
+    public ResponseEntity<StreamingResponseBody> exportProductsFromShop(@PathVariable Long shopId,
+                                                                        @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        shopService.requireShop(shopId); // 404, bevor der Stream beginnt
+
+        ResponseFormat format = ResponseFormat.negotiate(accept, MediaType.APPLICATION_NDJSON);
+        ObjectWriter writer = formats.mapper(format).writerFor(ProductView.class);
+        boolean lines = format == ResponseFormat.JSON;
+        StreamingResponseBody body = out -> {
+            BufferedOutputStream buffered = new BufferedOutputStream(out, 64 * 1024);
+            shopService.exportProducts(shopId, product -> {
+                buffered.write(writer.writeValueAsBytes(product));
+                if (lines) buffered.write('\n');
+            });
+            buffered.flush();
+        };
+
+        return ResponseEntity.ok()
+                .contentType(lines ? MediaType.APPLICATION_NDJSON : format.mediaType())
+                .body(body);
     }
 
     // Produkt eines Shops updaten (ShopService.updateProductInShop)
+    // Asynchron: mehrere Updates desselben Produkts werden zusammengefasst (WriteBehindQueue.submitUpdate)
+    @Bulkhead(EndpointClass.WRITE)
     @PutMapping("/{shopId}/products/{productId}")
-    public Product updateProductInShop(@PathVariable Long shopId,
-                                       @PathVariable Long productId,
-                                       @RequestBody @Valid ProductRequest request) {
-        return shopService.updateProductInShop(shopId, productId, request);
+    public ResponseEntity<?> updateProductInShop(@PathVariable Long shopId,
+                                                 @PathVariable Long productId,
+                                                 @RequestBody @Valid ProductRequest request,
+                                                 @RequestHeader(value = PREFER, required = false) String prefer) {
+        if (respondAsync(prefer)) return accepted(writeBehind.submitUpdate(shopId, productId, request));
+        return ResponseEntity.ok(ProductView.from(shopService.updateProductInShop(shopId, productId, request)));
+    }
+
+    // Produkt eines Shops teilweise updaten, z.B. nur den Preis (ShopService.patchProductInShop)
+    @Bulkhead(EndpointClass.WRITE)
+    @PatchMapping("/{shopId}/products/{productId}")
+    public ProductView patchProductInShop(@PathVariable Long shopId,
+                                          @PathVariable Long productId,
+                                          @RequestBody @Valid ProductPatchRequest request) {
+        return ProductView.from(shopService.patchProductInShop(shopId, productId, request));
+    }
+
+    // Produktsuche über alle Shops: Präfix- und tippfehlertolerante Treffer (ProductService.searchProducts)
+    // ?q=swo&limit=20
+    @Bulkhead(EndpointClass.READ)
+    @GetMapping("/products/search")
+    public List<ProductView> searchProducts(@RequestParam String q,
+                                            @RequestParam(required = false) Integer limit) {
+        return productService.searchProducts(q, limit);
     }
 
     // Produkt direkt löschen, wenn es keinem Shop zugeordnet ist (ProductService.deleteProduct)
+    @Bulkhead(EndpointClass.WRITE)
     @DeleteMapping("/products/{productId}")
     public void deleteProduct(@PathVariable Long productId) {
         productService.deleteProduct(productId);
     }
 
     // Produkt direkt erstellen, optional Shop-ID (ProductService.createProduct)
+    // Asynchron: WriteBehindQueue.submitCreate
+    @Bulkhead(EndpointClass.WRITE)
     @PostMapping("/products")
-    public Product createProduct(@RequestParam(required = false) Long shopId,
-                                 @RequestBody @Valid ProductRequest request) {
-        return productService.createProduct(request, shopId);
+    public ResponseEntity<?> createProduct(@RequestParam(required = false) Long shopId,
+                                           @RequestBody @Valid ProductRequest request,
+                                           @RequestHeader(value = PREFER, required = false) String prefer) {
+        if (respondAsync(prefer)) return accepted(writeBehind.submitCreate(request, shopId));
+        return ResponseEntity.ok(ProductView.from(productService.createProduct(request, shopId)));
+    }
+
+    // Status eines asynchron angenommenen Schreibzugriffs (QUEUED, APPLIED, SUPERSEDED, FAILED)
+    @Bulkhead(EndpointClass.READ)
+    @GetMapping("/writes/{trackingId}")
+    public WriteStatusView getWriteStatus(@PathVariable String trackingId) {
+        return writeBehind.status(trackingId);
+    }
+
+    // Prefer: Liste von Präferenzen, je "token[=wert]" mit optionalen ";parametern", mehrere Header werden zusammengefügt
+    private boolean respondAsync(String prefer) {
+        if (prefer == null || !writeBehind.isEnabled()) return false;
+
+        for (String preference : prefer.split(",")) {
+            String token = preference.split("[;=]", 2)[0].trim();
+            if (token.equalsIgnoreCase("respond-async")) return true;
+        }
+        return false;
+    }
+
+    private static ResponseEntity<WriteStatusView> accepted(WriteStatusView status) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/shop/writes/" + status.trackingId()))
+                .header("Preference-Applied", "respond-async")
+                .body(status);
     }
 }
\ No newline at end of file
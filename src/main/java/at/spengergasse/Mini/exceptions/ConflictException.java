@@ -0,0 +1,9 @@
+package at.spengergasse.Mini.exceptions;
+
+// Fachlicher Konflikt mit dem aktuellen Datenstand (Name vergeben, Produkt gehört zu einem anderen Shop)
+// Wird vom GlobalExceptionHandler als 409 beantwortet, gleich wie die Unique-Constraint der Datenbank:
+// derselbe Konflikt bekommt denselben Status, egal ob Guard oder Datenbank ihn zuerst bemerkt
+
+public class ConflictException extends RuntimeException {
+    public ConflictException(String message) {super(message);}
+}
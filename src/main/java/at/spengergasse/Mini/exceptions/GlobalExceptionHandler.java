@@ -32,18 +32,36 @@ package at.spengergasse.Mini.exceptions;
 // ---------------------------------
 // 400 BAD_REQUEST       -> Validation failures (client error)
 // 404 NOT_FOUND         -> Entity not found (client error)
+// 406 NOT_ACCEPTABLE    -> Accept header names no supported format (client error)
+// 409 CONFLICT          -> Business conflict (name taken, product belongs to another shop)
+// 409 CONFLICT          -> Concurrent modification (optimistic locking, retries exhausted)
+// 409 CONFLICT          -> Unique constraint violated (name taken; race past NameIndex/Guard)
+// 503 UNAVAILABLE       -> Write-behind queue full or not running (Retry-After)
+// 503 UNAVAILABLE       -> Load shedding: bulkhead full or queue time too long (Retry-After)
+// 503 UNAVAILABLE       -> Connection pool exhausted: no connection within connection-timeout (Retry-After)
 // 500 INTERNAL_SERVER   -> Unexpected errors (server error)
 
 import at.spengergasse.Mini.persistence.ShopRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.RejectedExecutionException;
+
 @RestControllerAdvice
 class GlobalExceptionHandler {
     private static final Logger log = LoggerFactory.getLogger(GlobalExceptionHandler.class);
@@ -130,6 +148,142 @@ class GlobalExceptionHandler {
     }
 
 
+    // 406 NOT_ACCEPTABLE - Content Negotiation
+    // ---------------------------------
+    // NotAcceptableException aus ResponseFormat (gecachte GETs, Export), HttpMediaTypeNotAcceptableException
+    // von Spring MVC für die übrigen Endpunkte (sonst landet sie im Catch-all als 500).
+    // Der ProblemDetail-Body wird unabhängig vom Accept als application/problem+json geschrieben
+    @ExceptionHandler({NotAcceptableException.class, HttpMediaTypeNotAcceptableException.class})
+    @ResponseStatus(HttpStatus.NOT_ACCEPTABLE)
+    ProblemDetail onNotAcceptable(Exception ex)
+    {
+        log.warn("[406 NOT_ACCEPTABLE] {}", ex.getMessage());
+
+        ProblemDetail problemDetail = ProblemDetail.forStatus(HttpStatus.NOT_ACCEPTABLE);
+        problemDetail.setDetail("Unterstützte Formate: application/json, application/cbor, application/x-jackson-smile");
+        return problemDetail;
+    }
+
+
+    // 409 CONFLICT - Fachlicher Konflikt
+    // ---------------------------------
+    // Name vergeben (Guard, gleich wie die Unique-Constraint unten), Produkt gehört zu einem anderen Shop
+    @ExceptionHandler(ConflictException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    ProblemDetail onConflict(ConflictException ex)
+    {
+        log.warn("[409 CONFLICT] {}", ex.getMessage());
+
+        ProblemDetail problemDetail = ProblemDetail.forStatus(HttpStatus.CONFLICT);
+        problemDetail.setDetail(ex.getMessage());
+        return problemDetail;
+    }
+
+
+    // 409 CONFLICT - Optimistic Locking
+    // ---------------------------------
+    // Erst nach den automatischen Wiederholungen (OptimisticRetry), der Client darf neu laden und erneut senden
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    ProblemDetail onConcurrentModification(OptimisticLockingFailureException ex)
+    {
+        log.warn("[409 CONFLICT] Concurrent modification: {}", ex.getMessage());
+
+        ProblemDetail problemDetail = ProblemDetail.forStatus(HttpStatus.CONFLICT);
+        problemDetail.setDetail("Der Datensatz wurde gleichzeitig geändert, bitte erneut versuchen.");
+        return problemDetail;
+    }
+
+
+    // 409 CONFLICT - Unique Constraint
+    // ---------------------------------
+    // Guard/NameIndex prüfen vorab, die Unique-Constraint entscheidet aber endgültig:
+    // zwei gleichzeitige Requests, eine zweite Instanz oder ein veralteter Index landen hier
+    // SQLState 23505 = unique_violation (H2 und PostgreSQL); andere Integritätsfehler bleiben 500
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    ResponseEntity<ProblemDetail> onIntegrityViolation(DataIntegrityViolationException ex)
+    {
+        if (!isUniqueViolation(ex)) {
+            return ResponseEntity.internalServerError().body(onUnexpectedException(ex));
+        }
+
+        log.warn("[409 CONFLICT] Unique constraint violated: {}", ex.getMostSpecificCause().getMessage());
+
+        ProblemDetail problemDetail = ProblemDetail.forStatus(HttpStatus.CONFLICT);
+        problemDetail.setDetail("Der Name existiert bereits!");
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(problemDetail);
+    }
+
+    private static boolean isUniqueViolation(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sql && "23505".equals(sql.getSQLState())) return true;
+        }
+        return false;
+    }
+
+
+    // 503 SERVICE_UNAVAILABLE - Write-Behind-Queue voll
+    // ---------------------------------
+    // Gegendruck statt unbegrenztem Puffern: der Client sendet nach Retry-After erneut
+    @ExceptionHandler(RejectedExecutionException.class)
+    ResponseEntity<ProblemDetail> onRejected(RejectedExecutionException ex)
+    {
+        log.warn("[503 SERVICE_UNAVAILABLE] Rejected: {}", ex.getMessage());
+
+        ProblemDetail problemDetail = ProblemDetail.forStatus(HttpStatus.SERVICE_UNAVAILABLE);
+        problemDetail.setDetail(ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(problemDetail);
+    }
+
+
+    // 503 SERVICE_UNAVAILABLE - Load Shedding (AdmissionControl)
+    // ---------------------------------
+    // Früh und billig abweisen, bevor Tomcat-Threads und DB-Connections belegt sind
+    @ExceptionHandler(OverloadedException.class)
+    ResponseEntity<ProblemDetail> onOverloaded(OverloadedException ex)
+    {
+        log.warn("[503 SERVICE_UNAVAILABLE] Load shedding: {}", ex.getMessage());
+
+        ProblemDetail problemDetail = ProblemDetail.forStatus(HttpStatus.SERVICE_UNAVAILABLE);
+        problemDetail.setDetail("Der Server ist ausgelastet, bitte später erneut versuchen.");
+        problemDetail.setProperty("endpointClass", ex.getEndpointClass());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(problemDetail);
+    }
+
+
+    // 503 SERVICE_UNAVAILABLE - Connection-Pool erschöpft
+    // ---------------------------------
+    // Hikari wirft nach connection-timeout eine SQLTransientConnectionException, Spring verpackt sie beim
+    // Transaktionsstart (CannotCreateTransactionException) bzw. beim direkten Zugriff (CannotGetJdbcConnectionException).
+    // Das ist Überlast, kein Fehler: 503 + Retry-After wie beim Load Shedding; andere Verbindungsfehler bleiben 500
+    @ExceptionHandler({CannotCreateTransactionException.class, DataAccessResourceFailureException.class})
+    ResponseEntity<ProblemDetail> onConnectionUnavailable(Exception ex)
+    {
+        if (!isPoolExhausted(ex)) {
+            return ResponseEntity.internalServerError().body(onUnexpectedException(ex));
+        }
+
+        log.warn("[503 SERVICE_UNAVAILABLE] Connection pool exhausted: {}", ex.getMessage());
+
+        ProblemDetail problemDetail = ProblemDetail.forStatus(HttpStatus.SERVICE_UNAVAILABLE);
+        problemDetail.setDetail("Der Server ist ausgelastet, bitte später erneut versuchen.");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(problemDetail);
+    }
+
+    private static boolean isPoolExhausted(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLTransientConnectionException) return true;
+        }
+        return false;
+    }
+
+
     // 500 INTERNAL_SERVER_ERROR - Catch-all for Unexpected Exceptions
     // ---------------------------------
     @ExceptionHandler(Exception.class)
@@ -0,0 +1,8 @@
+package at.spengergasse.Mini.exceptions;
+
+// Accept-Header nennt kein Format, das der Endpunkt liefern kann (siehe ResponseFormat.negotiate)
+// Wird vom GlobalExceptionHandler als 406 beantwortet
+
+public class NotAcceptableException extends RuntimeException {
+    public NotAcceptableException(String message) {super(message);}
+}
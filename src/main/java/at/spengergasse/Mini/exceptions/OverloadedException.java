@@ -0,0 +1,24 @@
+package at.spengergasse.Mini.exceptions;
+
+// Request wurde wegen Überlast abgewiesen (Bulkhead voll, Wartezeit zu lang), siehe AdmissionControl
+// Wird vom GlobalExceptionHandler als 503 mit Retry-After beantwortet
+
+public class OverloadedException extends RuntimeException {
+
+    private final String endpointClass;
+    private final long retryAfterSeconds;
+
+    public OverloadedException(String endpointClass, long retryAfterSeconds, String message) {
+        super(message);
+        this.endpointClass = endpointClass;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public String getEndpointClass() {
+        return endpointClass;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -13,9 +13,15 @@ import java.util.UUID;
 public abstract class BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // SEQUENCE (pooled, allocationSize 50) statt IDENTITY: Hibernate kennt die ID vor dem INSERT
+    // und kann Inserts daher per JDBC-Batch absetzen
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
     private Long id; // technische DB-ID
 
+    // Optimistic Locking: UPDATE ... where id=? and version=?, bei 0 Zeilen -> Konflikt statt "last write wins"
+    @Version
+    private Long version;
+
     @Column(name = "business_id", unique = true, nullable = false, updatable = false)
     private UUID businessId; // öffentliche, sichere ID
 
@@ -7,34 +7,49 @@ import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.Size;
 import lombok.Getter;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.proxy.HibernateProxy;
 
 @ToString(callSuper = true, exclude = "shop")
 @Getter
 @Entity
-@Table(name = "product")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "product")
+// UPDATE enthält nur die geänderten Spalten (Preisänderung -> "set price=? where id=?")
+@DynamicUpdate
+@Table(name = "product", indexes = {
+        // Keyset-Pagination je Shop (sort=id|name|price)
+        @Index(name = "idx_product_shop_id", columnList = "shop_id, id"),
+        @Index(name = "idx_product_shop_name", columnList = "shop_id, name"),
+        @Index(name = "idx_product_shop_price", columnList = "shop_id, price, id")
+})
 public class Product extends BaseEntity {
 
     @Column(name = "name", unique = true, nullable = false, length = 50)
     @NotEmpty @Size(max = 50)
     private String name;
 
+    // Ganze Cent als primitiver long: keine Box je Wert, exakte Vergleiche (kein Double-Rundungsfehler)
     @Column(name = "price", nullable = false)
     @Min(0)
     @Max(500000) // In Cent
-    private Double price;
+    private long price;
 
-    @ManyToOne
+    // LAZY: ein Produkt-Lookup (z.B. Guard.findByName) liest nur die Produktzeile, der Shop bleibt ein Proxy
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "shop_id")
     private Shop shop;
 
     public Product() {}
 
-    public Product(String name, Double price) {
+    public Product(String name, long price) {
         this.name = name;
         this.price = price;
     }
 
-    public Product(String name, Double price, Shop shop) {
+    public Product(String name, long price, Shop shop) {
         super();
         this.name = name;
         this.price = price;
@@ -43,21 +58,43 @@ public class Product extends BaseEntity {
         }
     }
 
-    public Product withUpdatedValues(String newName, Double newPrice) {
-        return new Product(newName, newPrice, this.shop);
+    // Bulk-Import: setzt nur die besitzende Seite (FK), ohne Shop.products zu laden
+    public static Product forShopReference(String name, long price, Shop shop) {
+        Product product = new Product(name, price);
+        product.shop = shop;
+        return product;
     }
 
-    public Product withUpdatedValues(String newName, Double newPrice, Shop newShop) {
-        return new Product(newName, newPrice, newShop);
+    // Update in place: die verwaltete Entity wird geändert, Dirty Checking schreibt beim Flush
+    // ein UPDATE derselben Zeile (gleiche id, gleiche businessId)
+    public void update(String newName, long newPrice) {
+        this.name = newName;
+        this.price = newPrice;
     }
 
     public void setShop(Shop shop) {
-        if (this.shop != null && this.shop != shop) {
-            this.shop.getProducts().remove(this);
-        }
+        if (this.shop == shop) return; // bereits zugeordnet -> O(1), kein contains()
+
+        Shop previous = this.shop;
         this.shop = shop;
-        if (shop != null && !shop.getProducts().contains(this)) {
-            shop.getProducts().add(this);
+        if (previous != null) {
+            previous.unlinkProduct(this);
         }
+        if (shop != null) {
+            shop.linkProduct(this);
+        }
+    }
+
+    // FK des Shops, ohne einen Lazy-Proxy zu initialisieren
+    public Long getShopId() {
+        if (shop instanceof HibernateProxy proxy) {
+            return (Long) proxy.getHibernateLazyInitializer().getIdentifier();
+        }
+        return shop == null ? null : shop.getId();
+    }
+
+    public boolean belongsTo(Long shopId) {
+        Long id = getShopId();
+        return id != null && id.equals(shopId);
     }
 }
\ No newline at end of file
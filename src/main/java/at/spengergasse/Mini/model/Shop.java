@@ -5,6 +5,10 @@ import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.Size;
 import lombok.Getter;
 import lombok.ToString;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.OptimisticLock;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -12,6 +16,8 @@ import java.util.List;
 @ToString(callSuper = true, exclude = "products")
 @Getter
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "shop")
 @Table(name = "shop")
 public class Shop extends BaseEntity {
 
@@ -20,7 +26,11 @@ public class Shop extends BaseEntity {
     @Size(max = 50)
     private String shopName;
 
+    // Produkte hinzufügen/entfernen erhöht die Shop-Version nicht: jedes Produkt ist eine eigene,
+    // eigens versionierte Zeile, so konkurrieren Schreiber auf einem Shop nicht um die Shop-Zeile
     @OneToMany(mappedBy = "shop", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OptimisticLock(excluded = true)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "shop-products")
     private List<Product> products = new ArrayList<>();
 
     public Shop() {}
@@ -30,19 +40,28 @@ public class Shop extends BaseEntity {
         this.shopName = shopName;
     }
 
+    // Mitgliedschaft wird über die besitzende Seite (product.shop) entschieden:
+    // kein List.contains-Scan, und die Lazy-Collection wird beim Hinzufügen nicht geladen
     public void addProduct(Product product) {
-        if (!products.contains(product)) {
-            products.add(product);
-            if (product.getShop() != this) {
-                product.setShop(this);
-            }
-        }
+        product.setShop(this);
     }
 
     public void removeProduct(Product product) {
-        products.remove(product);
         if (product.getShop() == this) {
             product.setShop(null);
         }
     }
+
+    // Nur von Product.setShop aufgerufen, hält die inverse Seite synchron
+    void linkProduct(Product product) {
+        products.add(product);
+    }
+
+    // Nicht geladene Collection bleibt unberührt (remove würde den ganzen Katalog laden),
+    // sie liest beim ersten Zugriff ohnehin den Stand aus der Datenbank
+    void unlinkProduct(Product product) {
+        if (Hibernate.isInitialized(products)) {
+            products.remove(product);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,76 @@
+package at.spengergasse.Mini.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.data.domain.Persistable;
+
+// Katalog-Statistik je Shop
+// ---------------------------------
+// Eine Zeile pro Shop (Primärschlüssel = Shop-ID), wird nach dem Commit jeder Produktänderung in einer
+// eigenen kurzen Transaktion per UPDATE ... set x = x + ? fortgeschrieben (siehe CatalogStats)
+//
+// - productCount, priceSum, minPrice, maxPrice: aktueller Katalog (Cent), min/max null bei leerem Shop
+// - Änderungen je Stunde/Tag (UTC): aktueller und vorheriger Zeitraum, beim ersten Schreibzugriff
+//   in einem neuen Zeitraum rückt der aktuelle Zähler auf "vorherigen" nach
+//
+// Kein @Version: alle Schreibzugriffe sind atomare UPDATE-Statements auf die Zeile
+// Persistable: die ID ist zugewiesen (Shop-ID), ohne isNew() würde save() per merge erst ein SELECT absetzen
+
+@ToString
+@Getter
+@Entity
+@Table(name = "shop_stats")
+public class ShopStats implements Persistable<Long> {
+
+    @Id
+    @Column(name = "shop_id")
+    private Long shopId;
+
+    private long productCount;
+    private long priceSum;
+    private Long minPrice;
+    private Long maxPrice;
+
+    private long changeHour; // Epoch-Stunde des letzten Schreibzugriffs
+    private long changesThisHour;
+    private long changesPreviousHour;
+
+    private long changeDay; // Epoch-Tag des letzten Schreibzugriffs
+    private long changesToday;
+    private long changesYesterday;
+
+    @Transient
+    private boolean persisted;
+
+    protected ShopStats() {}
+
+    public ShopStats(Long shopId) {
+        this.shopId = shopId;
+    }
+
+    // Für ShopStatsRepository.computeFromProducts (Konstruktor-Ausdruck über die Aggregate)
+    public ShopStats(Long shopId, Long productCount, Long priceSum, Long minPrice, Long maxPrice) {
+        this.shopId = shopId;
+        this.productCount = productCount;
+        this.priceSum = priceSum;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+    }
+
+    @Override
+    public Long getId() {
+        return shopId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        persisted = true;
+    }
+}
@@ -1,9 +1,23 @@
 package at.spengergasse.Mini.persistence;
 
 import at.spengergasse.Mini.model.Product;
+import at.spengergasse.Mini.viewmodel.ProductView;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 // Repository Layer (Data Access Layer)
 // ---------------------------------
@@ -57,5 +71,96 @@ import java.util.Optional;
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
     boolean existsByName(String name);
+
+    // Query-Cache: wird von Hibernate bei jeder Änderung an der Tabelle product invalidiert
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Product> findByName(String name);
-}
\ No newline at end of file
+
+    // Warm-up des NameIndex: nur die Namen, keine Entities
+    @Query("select p.name from Product p")
+    List<String> findAllNames();
+
+    // Warm-up des ProductSearchIndex
+    @Query("select p.id, p.name from Product p")
+    List<Object[]> findAllIdsAndNames();
+
+    // Mengenbasierte Namensprüfung für den Bulk-Import (eine Query statt findByName je Produkt)
+    @Query("select p.name from Product p where p.name in :names")
+    List<String> findExistingNames(@Param("names") Collection<String> names);
+
+    // Lese-Seite: Konstruktor-Projektionen auf ProductView statt Entities
+    // (nichts landet im Persistence Context, shopId kommt direkt aus dem FK ohne Join)
+    String PRODUCT_VIEW = "select new at.spengergasse.Mini.viewmodel.ProductView(p.id, p.businessId, p.name, p.price, p.shop.id) from Product p ";
+
+    @Query(PRODUCT_VIEW + "where p.shop.id = :shopId order by p.id")
+    List<ProductView> findViewsByShopId(@Param("shopId") Long shopId);
+
+    @Query(PRODUCT_VIEW + "where p.id in :ids")
+    List<ProductView> findViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Views zu ids aus einem In-Memory-Index, in der Reihenfolge der ids (fehlende werden übersprungen)
+    default List<ProductView> findViewsInOrder(List<Long> ids) {
+        if (ids.isEmpty()) return List.of();
+
+        Map<Long, ProductView> byId = new HashMap<>();
+        for (ProductView view : findViewsByIdIn(ids)) {
+            byId.put(view.id(), view);
+        }
+
+        List<ProductView> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            ProductView view = byId.get(id);
+            if (view != null) ordered.add(view);
+        }
+        return ordered;
+    }
+
+    // Suche vor dem Warm-up des ProductSearchIndex: Präfix-Suche in der Datenbank
+    @Query(PRODUCT_VIEW + "where lower(p.name) like :prefix escape '\\' order by p.name")
+    List<ProductView> findViewsByNamePrefix(@Param("prefix") String prefix, Limit limit);
+
+    // Aufbau des PriceIndex: nur (price, id), bereits sortiert über idx_product_shop_price (shop_id, price, id)
+    @Query("select p.price, p.id from Product p where p.shop.id = :shopId order by p.price, p.id")
+    List<Object[]> findPriceEntries(@Param("shopId") Long shopId);
+
+    // Preisbereich direkt aus der Datenbank (PriceIndex ohne minishop.single-instance), gleiche Reihenfolge
+    @Query("select p.id from Product p where p.shop.id = :shopId and p.price between :min and :max order by p.price, p.id")
+    List<Long> findIdsInPriceRange(@Param("shopId") Long shopId, @Param("min") long min, @Param("max") long max);
+
+    // Keyset Pagination: Seite nach (Sortierwert, id) der letzten Zeile
+    // Filtert über den FK shop_id, die Shop.products-Collection wird nie geladen
+    @Query(PRODUCT_VIEW + "where p.shop.id = :shopId and p.id > :afterId order by p.id")
+    List<ProductView> findPageOrderById(@Param("shopId") Long shopId,
+                                        @Param("afterId") Long afterId,
+                                        Limit limit);
+
+    @Query(PRODUCT_VIEW + """
+            where p.shop.id = :shopId
+              and (p.name > :afterName or (p.name = :afterName and p.id > :afterId))
+            order by p.name, p.id""")
+    List<ProductView> findPageOrderByName(@Param("shopId") Long shopId,
+                                          @Param("afterName") String afterName,
+                                          @Param("afterId") Long afterId,
+                                          Limit limit);
+
+    @Query(PRODUCT_VIEW + """
+            where p.shop.id = :shopId
+              and (p.price > :afterPrice or (p.price = :afterPrice and p.id > :afterId))
+            order by p.price, p.id""")
+    List<ProductView> findPageOrderByPrice(@Param("shopId") Long shopId,
+                                           @Param("afterPrice") Long afterPrice,
+                                           @Param("afterId") Long afterId,
+                                           Limit limit);
+
+    // Shop löschen: alle Produkte mit einem UPDATE vom Shop lösen statt einzeln zu laden und zu speichern
+    // Hibernate räumt dabei die betroffenen Second-Level-Cache-Regionen (product, shop-products) ab
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update versioned Product p set p.shop = null where p.shop.id = :shopId")
+    int detachAllFromShop(@Param("shopId") Long shopId);
+
+    // Export: Zeilen werden blockweise (Fetch-Size) vom Cursor gelesen statt alle auf einmal
+    // Muss innerhalb einer Transaktion konsumiert und danach geschlossen werden (try-with-resources)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(PRODUCT_VIEW + "where p.shop.id = :shopId order by p.id")
+    Stream<ProductView> streamViewsByShopId(@Param("shopId") Long shopId);
+}
@@ -1,8 +1,16 @@
 package at.spengergasse.Mini.persistence;
 
 import at.spengergasse.Mini.model.Shop;
+import at.spengergasse.Mini.viewmodel.ShopView;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
 
 // Repository Layer (Data Access Layer)
@@ -56,5 +64,25 @@ import java.util.Optional;
 // Enables exception translation (SQLException → DataAccessException)
 
 public interface ShopRepository extends JpaRepository<Shop, Long> {
+    // Query-Cache: wird von Hibernate bei jeder Änderung an der Tabelle shop invalidiert
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Shop> findByShopName(String name);
+
+    // Lese-Seite: Shop-Kopf als Konstruktor-Projektion, die Produkte kommen aus
+    // ProductRepository.findViewsByShopId (zwei flache Queries, keine Entities)
+    @Query("select new at.spengergasse.Mini.viewmodel.ShopView(s.id, s.businessId, s.shopName) from Shop s where s.id = :id")
+    Optional<ShopView> findViewById(@Param("id") Long id);
+
+    // Für deleteShop: nur der Name (NameIndex), die Entity wird nicht geladen
+    @Query("select s.shopName from Shop s where s.id = :id")
+    Optional<String> findShopNameById(@Param("id") Long id);
+
+    // Mengenbasiertes Löschen ohne vorheriges Laden (Produkte müssen vorher gelöst sein)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Shop s where s.id = :id")
+    int deleteShopById(@Param("id") Long id);
+
+    // Warm-up des NameIndex: nur die Namen, keine Entities
+    @Query("select s.shopName from Shop s")
+    List<String> findAllShopNames();
 }
\ No newline at end of file
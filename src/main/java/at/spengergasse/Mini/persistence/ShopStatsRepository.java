@@ -0,0 +1,105 @@
+package at.spengergasse.Mini.persistence;
+
+import at.spengergasse.Mini.model.ShopStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+// Fortschreiben der ShopStats-Zeile mit je einem atomaren UPDATE statt read-modify-write:
+// parallele Schreiber auf einem Shop warten kurz auf die Zeilensperre, es geht kein Zähler verloren.
+// Aufgerufen nach dem Commit in einer eigenen Transaktion (CatalogStats), die Sperre gilt nur je Statement.
+// Alle rechten Seiten eines SET sehen die alten Spaltenwerte (SQL-Standard, H2 und Postgres).
+
+public interface ShopStatsRepository extends JpaRepository<ShopStats, Long> {
+
+    // Änderungszähler je Stunde/Tag: im selben Zeitraum hochzählen, sonst nachrücken lassen
+    String COUNT_CHANGES = """
+            s.changesPreviousHour = case when s.changeHour = :hour then s.changesPreviousHour
+                                         when s.changeHour = :hour - 1 then s.changesThisHour
+                                         else 0 end,
+            s.changesThisHour = case when s.changeHour = :hour then s.changesThisHour + :changes else :changes end,
+            s.changeHour = :hour,
+            s.changesYesterday = case when s.changeDay = :day then s.changesYesterday
+                                      when s.changeDay = :day - 1 then s.changesToday
+                                      else 0 end,
+            s.changesToday = case when s.changeDay = :day then s.changesToday + :changes else :changes end,
+            s.changeDay = :day
+            """;
+
+    // min/max nach Entfernen oder Preisänderung neu bestimmen: je ein Index-Zugriff
+    // auf idx_product_shop_price (shop_id, price, id), erstes bzw. letztes Element
+    String RECOMPUTE_MIN_MAX = """
+            s.minPrice = (select min(p.price) from Product p where p.shop.id = :shopId),
+            s.maxPrice = (select max(p.price) from Product p where p.shop.id = :shopId),
+            """;
+
+    @Modifying
+    @Query("update ShopStats s set s.productCount = s.productCount + :count, s.priceSum = s.priceSum + :sum, "
+            + "s.minPrice = case when s.minPrice is null or :min < s.minPrice then :min else s.minPrice end, "
+            + "s.maxPrice = case when s.maxPrice is null or :max > s.maxPrice then :max else s.maxPrice end, "
+            + COUNT_CHANGES + "where s.shopId = :shopId")
+    int productsAdded(@Param("shopId") Long shopId,
+                      @Param("count") long count,
+                      @Param("sum") long sum,
+                      @Param("min") long min,
+                      @Param("max") long max,
+                      @Param("changes") long changes,
+                      @Param("hour") long hour,
+                      @Param("day") long day);
+
+    @Modifying
+    @Query("update ShopStats s set s.productCount = s.productCount - 1, s.priceSum = s.priceSum - :price, "
+            + RECOMPUTE_MIN_MAX + COUNT_CHANGES + "where s.shopId = :shopId")
+    int productRemoved(@Param("shopId") Long shopId,
+                       @Param("price") long price,
+                       @Param("changes") long changes,
+                       @Param("hour") long hour,
+                       @Param("day") long day);
+
+    @Modifying
+    @Query("update ShopStats s set s.priceSum = s.priceSum + :priceDelta, "
+            + RECOMPUTE_MIN_MAX + COUNT_CHANGES + "where s.shopId = :shopId")
+    int productUpdated(@Param("shopId") Long shopId,
+                       @Param("priceDelta") long priceDelta,
+                       @Param("changes") long changes,
+                       @Param("hour") long hour,
+                       @Param("day") long day);
+
+    // Reparatur, falls ein Fortschreiben nach dem Commit gescheitert ist (Änderungszähler bleiben)
+    @Modifying
+    @Query("update ShopStats s set "
+            + "s.productCount = (select count(p) from Product p where p.shop.id = :shopId), "
+            + "s.priceSum = (select coalesce(sum(p.price), 0L) from Product p where p.shop.id = :shopId), "
+            + "s.minPrice = (select min(p.price) from Product p where p.shop.id = :shopId), "
+            + "s.maxPrice = (select max(p.price) from Product p where p.shop.id = :shopId) "
+            + "where s.shopId = :shopId")
+    int recompute(@Param("shopId") Long shopId);
+
+    @Modifying
+    @Query("delete from ShopStats s where s.shopId = :shopId")
+    int deleteByShopId(@Param("shopId") Long shopId);
+
+    // Beim Start: Zeilen für alle Shops ohne Statistik (vor Einführung angelegt) in einem Statement,
+    // Änderungszähler beginnen bei 0
+    @Modifying
+    @Transactional
+    @Query("""
+            insert into ShopStats (shopId, productCount, priceSum, minPrice, maxPrice,
+                                   changeHour, changesThisHour, changesPreviousHour, changeDay, changesToday, changesYesterday)
+            select s.id, count(p.id), coalesce(sum(p.price), 0L), min(p.price), max(p.price), 0L, 0L, 0L, 0L, 0L, 0L
+            from Shop s left join Product p on p.shop.id = s.id
+            where not exists (select 1 from ShopStats st where st.shopId = s.id)
+            group by s.id""")
+    int insertMissing();
+
+    // Lesen ohne Statistik-Zeile (z.B. von einer älteren Instanz angelegt): einmalige Aggregation
+    // über den Index, leer bei einem Shop ohne Produkte
+    @Query("""
+            select new at.spengergasse.Mini.model.ShopStats(p.shop.id, count(p), sum(p.price), min(p.price), max(p.price))
+            from Product p where p.shop.id = :shopId group by p.shop.id""")
+    Optional<ShopStats> computeFromProducts(@Param("shopId") Long shopId);
+}
@@ -0,0 +1,154 @@
+package at.spengergasse.Mini.service;
+
+// Katalog-Statistik je Shop
+// ---------------------------------
+// Zähler statt Aggregation beim Lesen: GET /api/shop/{id}/stats ist ein einziger Zugriff
+// über den Primärschlüssel, egal wie groß der Katalog ist (Dashboards fragen alle paar Sekunden)
+//
+// - Fortgeschrieben NACH dem Commit des Schreibzugriffs, in einer eigenen kurzen Transaktion:
+//   die Zeilensperre auf shop_stats gilt nur für dieses eine UPDATE. In der Schreib-Transaktion
+//   würde sie bis zum Commit gehalten und alle Schreiber eines Shops hintereinander reihen.
+//   Ein Rollback hinterlässt nichts (die Aktion wird verworfen)
+// - Scheitert das UPDATE nach dem Commit, werden Anzahl, Summe und min/max aus den Produkten neu berechnet
+// - min/max werden beim Hinzufügen verglichen, beim Entfernen/Ändern per Subquery über
+//   idx_product_shop_price nachgelesen (sieht den committeten Stand)
+// - Jeder Shop bekommt seine Zeile beim Anlegen (persist, kein merge); Shops von vor der Einführung
+//   einmal beim Start über ein INSERT ... SELECT. Kein Nachlegen im Schreibpfad: zwei gleichzeitige
+//   erste Schreibzugriffe würden beide einfügen und an der Primärschlüssel-Verletzung scheitern
+// - Fehlt eine Zeile trotzdem (Shop gerade gelöscht), ändert das UPDATE nichts; gelesen wird dann aus den Produkten
+
+import at.spengergasse.Mini.model.ShopStats;
+import at.spengergasse.Mini.persistence.ShopStatsRepository;
+import at.spengergasse.Mini.support.AfterCommit;
+import at.spengergasse.Mini.viewmodel.ShopStatsView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LongSummaryStatistics;
+
+@Component
+public class CatalogStats {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CatalogStats.class);
+
+    private static final long MILLIS_PER_HOUR = Duration.ofHours(1).toMillis();
+    private static final long MILLIS_PER_DAY = Duration.ofDays(1).toMillis();
+
+    private final ShopStatsRepository statsRepository;
+    private final Clock clock;
+    private final TransactionTemplate separateTransaction;
+
+    CatalogStats(ShopStatsRepository statsRepository, Clock clock, PlatformTransactionManager transactionManager) {
+        this.statsRepository = statsRepository;
+        this.clock = clock;
+        // REQUIRES_NEW: in afterCommit() sind die Ressourcen der beendeten Transaktion noch gebunden
+        this.separateTransaction = new TransactionTemplate(transactionManager);
+        this.separateTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillMissing() {
+        try {
+            int inserted = statsRepository.insertMissing();
+            if (inserted > 0) LOGGER.info("Created catalog stats for {} existing shops", inserted);
+        } catch (DataIntegrityViolationException e) {
+            // eine andere Instanz war gleichzeitig schneller, die Zeilen existieren
+            LOGGER.info("Catalog stats backfill skipped, rows were created concurrently");
+        }
+    }
+
+    public void created(Long shopId) {
+        statsRepository.save(new ShopStats(shopId));
+    }
+
+    public void added(Long shopId, long price) {
+        if (shopId == null) return;
+        long now = clock.millis();
+        afterCommit(shopId, () -> statsRepository.productsAdded(shopId, 1, price, price, price, 1, hour(now), day(now)));
+    }
+
+    public void added(Long shopId, LongSummaryStatistics prices) {
+        if (shopId == null || prices.getCount() == 0) return;
+        long now = clock.millis();
+        afterCommit(shopId, () -> statsRepository.productsAdded(shopId, prices.getCount(), prices.getSum(),
+                prices.getMin(), prices.getMax(), prices.getCount(), hour(now), day(now)));
+    }
+
+    public void removed(Long shopId, long price) {
+        long now = clock.millis();
+        afterCommit(shopId, () -> statsRepository.productRemoved(shopId, price, 1, hour(now), day(now)));
+    }
+
+    public void updated(Long shopId, long previousPrice, long price) {
+        updated(shopId, price - previousPrice, 1);
+    }
+
+    // Mehrere Updates eines Shops in einem Statement (Write-Behind-Batch)
+    public void updated(Long shopId, long priceDelta, long changes) {
+        if (shopId == null || changes == 0) return;
+        long now = clock.millis();
+        afterCommit(shopId, () -> statsRepository.productUpdated(shopId, priceDelta, changes, hour(now), day(now)));
+    }
+
+    public void deleted(Long shopId) {
+        statsRepository.deleteByShopId(shopId);
+    }
+
+    public ShopStatsView get(Long shopId) {
+        ShopStats stats = statsRepository.findById(shopId)
+                .or(() -> statsRepository.computeFromProducts(shopId))
+                .orElseGet(() -> new ShopStats(shopId));
+
+        long now = clock.millis();
+        long count = stats.getProductCount();
+        Long avg = count == 0 ? null : Math.round((double) stats.getPriceSum() / count);
+        return new ShopStatsView(shopId, count, stats.getMinPrice(), stats.getMaxPrice(), avg, stats.getPriceSum(),
+                new ShopStatsView.Changes(
+                        current(stats.getChangeHour(), stats.getChangesThisHour(), hour(now)),
+                        previous(stats.getChangeHour(), stats.getChangesThisHour(), stats.getChangesPreviousHour(), hour(now)),
+                        current(stats.getChangeDay(), stats.getChangesToday(), day(now)),
+                        previous(stats.getChangeDay(), stats.getChangesToday(), stats.getChangesYesterday(), day(now))));
+    }
+
+    private void afterCommit(Long shopId, Runnable update) {
+        AfterCommit.run(() -> {
+            try {
+                separateTransaction.executeWithoutResult(status -> update.run());
+            } catch (RuntimeException e) {
+                // Schreibzugriff ist schon committed, der Aufrufer soll keinen Fehler sehen
+                LOGGER.warn("Catalog stats update of shop {} failed, recomputing from products", shopId, e);
+                try {
+                    separateTransaction.executeWithoutResult(status -> statsRepository.recompute(shopId));
+                } catch (RuntimeException again) {
+                    LOGGER.error("Catalog stats of shop {} could not be recomputed", shopId, again);
+                }
+            }
+        });
+    }
+
+    // Die Zähler sind auf dem Stand des letzten Schreibzugriffs, beim Lesen auf "jetzt" verschieben
+    private static long current(long period, long changes, long now) {
+        return period == now ? changes : 0;
+    }
+
+    private static long previous(long period, long changes, long previousChanges, long now) {
+        if (period == now) return previousChanges;
+        return period == now - 1 ? changes : 0;
+    }
+
+    private static long hour(long millis) {
+        return millis / MILLIS_PER_HOUR;
+    }
+
+    private static long day(long millis) {
+        return millis / MILLIS_PER_DAY;
+    }
+}
@@ -0,0 +1,41 @@
+package at.spengergasse.Mini.service;
+
+// Katalog-Versionen je Shop
+// ---------------------------------
+// Zähler, der nach jedem committeten Schreibzugriff auf einen Shop oder seine Produkte
+// hochgezählt wird. Grundlage für ETags und für das Invalidieren von In-Memory-Caches.
+//
+// - Hochzählen erst nach dem Commit: ein Leser, der Version v sieht, liest danach
+//   mindestens den Datenstand von v (nie einen älteren)
+// - Die Epoche (Startzeitpunkt) macht Versionen nach einem Neustart eindeutig
+// - Nur für eine einzelne Instanz aussagekräftig (minishop.single-instance): Schreibzugriffe anderer
+//   Instanzen zählen hier nicht hoch, ResponseCache verwendet die Versionen sonst nicht
+
+import at.spengergasse.Mini.support.AfterCommit;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class CatalogVersions {
+
+    private final long epoch = System.currentTimeMillis();
+    private final ConcurrentMap<Long, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    public long current(Long shopId) {
+        AtomicLong version = versions.get(shopId);
+        return version == null ? 0 : version.get();
+    }
+
+    public void changed(Long shopId) {
+        if (shopId == null) return;
+        AfterCommit.run(() -> versions.computeIfAbsent(shopId, id -> new AtomicLong()).incrementAndGet());
+    }
+
+    // Weak ETag: gleiche Version = semantisch gleiche Antwort
+    public String etag(Long shopId) {
+        return "W/\"" + epoch + "-" + shopId + "-" + current(shopId) + "\"";
+    }
+}
@@ -0,0 +1,236 @@
+package at.spengergasse.Mini.service;
+
+// Preis-Index je Shop (In-Memory)
+// ---------------------------------
+// Pro Shop zwei parallele, primitive Arrays, sortiert nach (Preis, id):
+//   prices = [ 100, 250, 250, 900, ... ]
+//   ids    = [  17,   3,  42,   8, ... ]
+// "Produkte zwischen X und Y" = zwei binäre Suchen -> Bereich [von, bis) -> ids, O(log n)
+// statt Full Scan; kein Objekt je Eintrag, 16 Byte pro Produkt.
+//
+// Aufbau einmal aus der Datenbank über den Index idx_product_shop_price (shop_id, price, id),
+// die Zeilen kommen bereits sortiert. Danach wird der Snapshot nur noch inkrementell gepflegt:
+//   - Preisänderungen (neues Produkt, Entfernen, Preis-Update, Bulk-Import, Write-Behind-Batch)
+//     werden nach dem Commit als (Preis, id)-Paare eingemischt, ein Merge in O(n + k), ohne Query
+//   - Umbenennungen und andere Schreibzugriffe ohne Preisbezug lassen den Index unberührt
+//   - Einmischen ist idempotent: ein Paar, das der Snapshot schon kennt, wird nicht doppelt eingefügt
+// Ein Aufbau, während dessen eine Änderung committed wurde, wird nicht übernommen (Preis-Version je Shop),
+// der nächste Lesezugriff baut neu. Die Anzahl der gehaltenen Shops ist begrenzt (Caffeine, LRU-ähnlich).
+//
+// Nur mit minishop.single-instance=true: Änderungen anderer Instanzen kommen hier nie an.
+// Sonst wird jede Abfrage über idx_product_shop_price in der Datenbank beantwortet (nur der Bereich).
+
+import at.spengergasse.Mini.persistence.ProductRepository;
+import at.spengergasse.Mini.support.AfterCommit;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+@Component
+public class PriceIndex {
+
+    public record Range(int total, long[] ids) {}
+
+    // Sortierte (Preis, id)-Paare; Snapshots werden nie verändert, jede Änderung erzeugt neue Arrays
+    private record Entries(long[] prices, long[] ids) {
+
+        static final Entries EMPTY = new Entries(new long[0], new long[0]);
+
+        static Entries of(long price, long id) {
+            return new Entries(new long[]{price}, new long[]{id});
+        }
+
+        static Entries sorted(long[] prices, long[] ids) {
+            int[] order = IntStream.range(0, prices.length).boxed()
+                    .sorted(Comparator.<Integer>comparingLong(i -> prices[i]).thenComparingLong(i -> ids[i]))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            long[] sortedPrices = new long[order.length];
+            long[] sortedIds = new long[order.length];
+            for (int i = 0; i < order.length; i++) {
+                sortedPrices[i] = prices[order[i]];
+                sortedIds[i] = ids[order[i]];
+            }
+            return new Entries(sortedPrices, sortedIds);
+        }
+
+        int size() {
+            return prices.length;
+        }
+
+        // erste Position mit prices[i] >= price
+        int lowerBound(long price) {
+            int low = 0, high = prices.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (prices[mid] < price) low = mid + 1;
+                else high = mid;
+            }
+            return low;
+        }
+
+        // erste Position mit prices[i] > price
+        int upperBound(long price) {
+            int low = 0, high = prices.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (prices[mid] <= price) low = mid + 1;
+                else high = mid;
+            }
+            return low;
+        }
+
+        boolean contains(long price, long id) {
+            int low = 0, high = prices.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = compare(prices[mid], ids[mid], price, id);
+                if (cmp < 0) low = mid + 1;
+                else if (cmp > 0) high = mid - 1;
+                else return true;
+            }
+            return false;
+        }
+
+        // Merge: bestehende Paare ohne removed, dazu added (schon enthaltene nicht doppelt)
+        Entries apply(Entries removed, Entries added) {
+            long[] mergedPrices = new long[size() + added.size()];
+            long[] mergedIds = new long[size() + added.size()];
+            int n = 0, a = 0;
+            for (int i = 0; i <= size(); i++) {
+                while (a < added.size() && (i == size() || compare(added.prices[a], added.ids[a], prices[i], ids[i]) < 0)) {
+                    mergedPrices[n] = added.prices[a];
+                    mergedIds[n++] = added.ids[a++];
+                }
+                if (i == size()) break;
+                if (a < added.size() && compare(added.prices[a], added.ids[a], prices[i], ids[i]) == 0) a++;
+                if (removed.contains(prices[i], ids[i])) continue;
+                mergedPrices[n] = prices[i];
+                mergedIds[n++] = ids[i];
+            }
+            return new Entries(Arrays.copyOf(mergedPrices, n), Arrays.copyOf(mergedIds, n));
+        }
+
+        private static int compare(long price1, long id1, long price2, long id2) {
+            int cmp = Long.compare(price1, price2);
+            return cmp != 0 ? cmp : Long.compare(id1, id2);
+        }
+    }
+
+    private final ProductRepository productRepository;
+    private final boolean singleInstance;
+    private final Cache<Long, Entries> snapshots;
+    // Preis-Version je Shop: wird bei jeder committeten Preisänderung hochgezählt (auch ohne Snapshot)
+    private final ConcurrentMap<Long, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    PriceIndex(ProductRepository productRepository,
+               @Value("${minishop.price-index.max-shops:1000}") long maxShops,
+               @Value("${minishop.single-instance:true}") boolean singleInstance) {
+        this.productRepository = productRepository;
+        this.singleInstance = singleInstance;
+        this.snapshots = Caffeine.newBuilder().maximumSize(maxShops).build();
+    }
+
+    // ids der Produkte mit min <= Preis <= max in (Preis, id)-Reihenfolge, ab offset, höchstens limit
+    public Range find(Long shopId, long min, long max, int offset, int limit) {
+        if (!singleInstance) {
+            List<Long> ids = productRepository.findIdsInPriceRange(shopId, min, max);
+            int start = Math.min(offset, ids.size());
+            int end = Math.min(start + limit, ids.size());
+            return new Range(ids.size(), ids.subList(start, end).stream().mapToLong(Long::longValue).toArray());
+        }
+
+        Entries snapshot = snapshot(shopId);
+
+        int from = snapshot.lowerBound(min);
+        int to = snapshot.upperBound(max);
+        int total = Math.max(0, to - from);
+
+        int start = Math.min(from + offset, to);
+        int end = Math.min(start + limit, to);
+        return new Range(total, Arrays.copyOfRange(snapshot.ids(), start, Math.max(start, end)));
+    }
+
+    // Änderungen werden erst nach dem Commit eingemischt (bei Rollback verworfen)
+
+    public void added(Long shopId, long productId, long price) {
+        change(shopId, Entries.EMPTY, Entries.of(price, productId));
+    }
+
+    public void added(Long shopId, long[] productIds, long[] prices) {
+        if (productIds.length == 0) return;
+        change(shopId, Entries.EMPTY, Entries.sorted(prices, productIds));
+    }
+
+    public void removed(Long shopId, long productId, long price) {
+        change(shopId, Entries.of(price, productId), Entries.EMPTY);
+    }
+
+    public void priceChanged(Long shopId, long productId, long previousPrice, long price) {
+        if (previousPrice == price) return;
+        change(shopId, Entries.of(previousPrice, productId), Entries.of(price, productId));
+    }
+
+    // Mehrere Preis-Updates eines Shops in einem Merge (Write-Behind-Batch)
+    public void pricesChanged(Long shopId, long[] productIds, long[] previousPrices, long[] prices) {
+        if (productIds.length == 0) return;
+        change(shopId, Entries.sorted(previousPrices, productIds), Entries.sorted(prices, productIds));
+    }
+
+    public void shopDeleted(Long shopId) {
+        if (shopId == null || !singleInstance) return;
+        AfterCommit.run(() -> snapshots.asMap().compute(shopId, (id, current) -> {
+            version(id).incrementAndGet();
+            return null;
+        }));
+    }
+
+    private void change(Long shopId, Entries removed, Entries added) {
+        if (shopId == null || !singleInstance) return;
+        // Version und Snapshot im selben compute: ein gleichzeitiger Aufbau sieht entweder beides oder keins
+        AfterCommit.run(() -> snapshots.asMap().compute(shopId, (id, current) -> {
+            version(id).incrementAndGet();
+            return current == null ? null : current.apply(removed, added);
+        }));
+    }
+
+    private Entries snapshot(Long shopId) {
+        Entries snapshot = snapshots.getIfPresent(shopId);
+        if (snapshot != null) {
+            return snapshot;
+        }
+
+        // Version VOR dem Lesen: ein Commit danach zählt hoch -> der Aufbau wird nicht übernommen
+        long version = version(shopId).get();
+        Entries built = build(shopId);
+        snapshots.asMap().compute(shopId, (id, current) -> {
+            if (current != null) return current;
+            return version(id).get() == version ? built : null;
+        });
+        return built;
+    }
+
+    private AtomicLong version(Long shopId) {
+        return versions.computeIfAbsent(shopId, id -> new AtomicLong());
+    }
+
+    private Entries build(Long shopId) {
+        List<Object[]> rows = productRepository.findPriceEntries(shopId);
+        long[] prices = new long[rows.size()];
+        long[] ids = new long[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            prices[i] = (Long) rows.get(i)[0];
+            ids[i] = (Long) rows.get(i)[1];
+        }
+        return new Entries(prices, ids);
+    }
+}
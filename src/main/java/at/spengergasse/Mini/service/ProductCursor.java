@@ -0,0 +1,68 @@
+package at.spengergasse.Mini.service;
+
+// Keyset Pagination (Cursor)
+// ---------------------------------
+// Statt OFFSET merkt sich der Client die Position der letzten gelieferten Zeile:
+//   (Sortierwert, id) der letzten Zeile -> "WHERE (wert, id) > (:wert, :id)"
+// Die Datenbank springt per Index direkt an diese Stelle, egal auf welcher Seite man ist.
+//
+// Der Cursor ist für den Client opak (Base64-URL von "sort:id:wert").
+
+import at.spengergasse.Mini.viewmodel.ProductSort;
+import at.spengergasse.Mini.viewmodel.ProductView;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+record ProductCursor(ProductSort sort, long id, String value) {
+
+    // Startposition vor der ersten Zeile (ids > 0, Namen nicht leer, Preise >= 0)
+    static ProductCursor first(ProductSort sort) {
+        return switch (sort) {
+            case ID -> new ProductCursor(sort, 0L, null);
+            case NAME -> new ProductCursor(sort, 0L, "");
+            case PRICE -> new ProductCursor(sort, 0L, "-1");
+        };
+    }
+
+    static ProductCursor after(ProductSort sort, ProductView last) {
+        return switch (sort) {
+            case ID -> new ProductCursor(sort, last.id(), null);
+            case NAME -> new ProductCursor(sort, last.id(), last.name());
+            case PRICE -> new ProductCursor(sort, last.id(), String.valueOf(last.price()));
+        };
+    }
+
+    static ProductCursor decode(String cursor, ProductSort sort) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Ungültiger Cursor!");
+        }
+
+        String[] parts = raw.split(":", 3);
+        if (parts.length < 2) throw new IllegalArgumentException("Ungültiger Cursor!");
+        if (!sort.name().equals(parts[0])) throw new IllegalArgumentException("Cursor passt nicht zur Sortierung '" + sort.name().toLowerCase() + "'!");
+
+        String value = parts.length == 3 ? parts[2] : null;
+        if (sort != ProductSort.ID && value == null) throw new IllegalArgumentException("Ungültiger Cursor!");
+
+        try {
+            long id = Long.parseLong(parts[1]);
+            if (sort == ProductSort.PRICE) Long.parseLong(value);
+            return new ProductCursor(sort, id, value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Ungültiger Cursor!");
+        }
+    }
+
+    String encode() {
+        String raw = sort.name() + ":" + id + (value == null ? "" : ":" + value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    Long priceValue() {
+        return Long.valueOf(value);
+    }
+}
@@ -0,0 +1,248 @@
+package at.spengergasse.Mini.service;
+
+// In-Memory-Suchindex über Product.name
+// ---------------------------------
+// Zwei Strukturen, inkrementell von den Schreibpfaden gepflegt (nach dem Commit):
+//
+//   1. Präfix:  sortierte Map "name (klein)\0id" -> id
+//               Präfixsuche = subMap(q, q + '￿'), O(log n + Treffer)
+//   2. Tippfehler: Trigramm-Postings "$$sword$" -> {$$s, $sw, swo, wor, ord, rd$} -> ids
+//               Kandidaten = Produkte mit gemeinsamen Trigrammen, danach Prüfung per
+//               Editierdistanz gegen den Namensanfang (1 Fehler bis 4 Zeichen, sonst 2)
+//
+// Ein LIKE '%q%' müsste die ganze Tabelle lesen; hier werden nur Treffer angefasst.
+// Vor dem Warm-up sucht ProductService per Präfix-Query in der Datenbank.
+//
+// Warm-up: der Snapshot aus findAllIdsAndNames() kann älter sein als gleichzeitig committete
+// Änderungen. Diese werden bis zum Ende des Warm-ups gepuffert und danach in Reihenfolge
+// nachgespielt, sonst käme ein gelöschtes Produkt als Geist oder ein alter Name zurück.
+//
+// Häufige Trigramme (z.B. "$$s") decken große Teile des Katalogs ab: Postings werden seltenste
+// zuerst und je höchstens MAX_POSTING_SCAN ids gelesen, eine kurze Suche bleibt so unabhängig von n.
+//
+// Gepflegt wird nur aus den Schreibpfaden dieser JVM: ohne minishop.single-instance=true bleibt der
+// Index aus (nie "ready"), die Suche läuft dann immer über die Präfix-Query in der Datenbank.
+
+import at.spengergasse.Mini.persistence.ProductRepository;
+import at.spengergasse.Mini.support.AfterCommit;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+@Component
+@RequiredArgsConstructor
+public class ProductSearchIndex {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private static final int MAX_FUZZY_CANDIDATES = 500;
+    private static final int MAX_POSTING_SCAN = 2000;
+
+    private final ProductRepository productRepository;
+
+    private final ConcurrentSkipListMap<String, Long> byName = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<Long, String> names = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Set<Long>> trigrams = new ConcurrentHashMap<>();
+
+    @Value("${minishop.single-instance:true}")
+    private boolean singleInstance = true;
+
+    private volatile boolean ready;
+
+    // Änderungen während des Warm-ups (Zugriff nur synchronized), null sobald der Index bereit ist
+    private List<Runnable> pending = new ArrayList<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!singleInstance) {
+            synchronized (this) {
+                pending = null;
+            }
+            LOGGER.info("Product search index disabled (minishop.single-instance=false), search queries the database");
+            return;
+        }
+
+        for (Object[] row : productRepository.findAllIdsAndNames()) {
+            index((Long) row[0], (String) row[1]);
+        }
+
+        int replayed;
+        synchronized (this) {
+            replayed = pending.size();
+            pending.forEach(Runnable::run);
+            pending = null;
+            ready = true;
+        }
+        LOGGER.info("Product search index warmed up ({} products, {} changes replayed)", names.size(), replayed);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // ----- Pflege (nach dem Commit, ein Rollback hinterlässt nichts im Index) -----
+
+    public void productAdded(Long id, String name) {
+        AfterCommit.run(() -> apply(() -> index(id, name)));
+    }
+
+    // Bulk-Import: eine After-Commit-Aktion für alle Produkte statt einer je Produkt
+    public void productsAdded(Map<Long, String> namesById) {
+        AfterCommit.run(() -> apply(() -> namesById.forEach(this::index)));
+    }
+
+    public void productRenamed(Long id, String newName) {
+        AfterCommit.run(() -> apply(() -> {
+            unindex(id);
+            index(id, newName);
+        }));
+    }
+
+    public void productRemoved(Long id) {
+        AfterCommit.run(() -> apply(() -> unindex(id)));
+    }
+
+    private synchronized void apply(Runnable change) {
+        if (!singleInstance) return;
+        if (pending != null) {
+            pending.add(change);
+            return;
+        }
+        change.run();
+    }
+
+    // ----- Suche -----
+
+    // ids: erst Präfix-Treffer (alphabetisch), dann Tippfehler-Treffer (nach Distanz)
+    public List<Long> search(String query, int limit) {
+        String q = normalize(query);
+        Set<Long> result = new LinkedHashSet<>();
+
+        for (Long id : byName.subMap(q, q + Character.MAX_VALUE).values()) {
+            if (result.size() >= limit) return new ArrayList<>(result);
+            result.add(id);
+        }
+
+        if (q.length() >= 3) {
+            result.addAll(fuzzy(q, limit - result.size(), result));
+        }
+        return new ArrayList<>(result);
+    }
+
+    private List<Long> fuzzy(String q, int limit, Set<Long> exclude) {
+        if (limit <= 0) return List.of();
+
+        // Kandidaten nach Anzahl gemeinsamer Trigramme, seltenste Trigramme zuerst, je Posting gedeckelt
+        List<Set<Long>> postings = trigramsOf(q).stream()
+                .map(gram -> trigrams.getOrDefault(gram, Set.of()))
+                .sorted(Comparator.comparingInt(Set::size))
+                .toList();
+        Map<Long, Integer> shared = new HashMap<>();
+        for (Set<Long> posting : postings) {
+            int scanned = 0;
+            for (Long id : posting) {
+                if (++scanned > MAX_POSTING_SCAN) break;
+                if (!exclude.contains(id)) shared.merge(id, 1, Integer::sum);
+            }
+        }
+
+        int maxEdits = q.length() <= 4 ? 1 : 2;
+        record Match(Long id, int distance, String name) {}
+        List<Match> matches = new ArrayList<>();
+        shared.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed())
+                .limit(MAX_FUZZY_CANDIDATES)
+                .forEach(candidate -> {
+                    String name = names.get(candidate.getKey());
+                    if (name == null) return;
+                    int distance = prefixDistance(q, name, maxEdits);
+                    if (distance <= maxEdits) matches.add(new Match(candidate.getKey(), distance, name));
+                });
+
+        return matches.stream()
+                .sorted(Comparator.comparingInt(Match::distance).thenComparing(Match::name))
+                .limit(limit)
+                .map(Match::id)
+                .toList();
+    }
+
+    // ----- intern -----
+
+    private synchronized void index(Long id, String name) {
+        String normalized = normalize(name);
+        names.put(id, normalized);
+        byName.put(normalized + '\0' + id, id);
+        for (String gram : trigramsOf(normalized)) {
+            trigrams.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+    }
+
+    private synchronized void unindex(Long id) {
+        String normalized = names.remove(id);
+        if (normalized == null) return;
+        byName.remove(normalized + '\0' + id);
+        for (String gram : trigramsOf(normalized)) {
+            Set<Long> ids = trigrams.get(gram);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) trigrams.remove(gram, ids);
+            }
+        }
+    }
+
+    static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // "$$" vorne, damit auch Tippfehler in den ersten Zeichen gemeinsame Trigramme behalten
+    static Set<String> trigramsOf(String normalized) {
+        String padded = "$$" + normalized + "$";
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    // Kleinste Editierdistanz (Einfügen, Löschen, Ersetzen, Vertauschen) zwischen q und einem
+    // Namensanfang ähnlicher Länge -> "swrod" findet "sword of fire"
+    static int prefixDistance(String q, String name, int maxEdits) {
+        int best = Integer.MAX_VALUE;
+        for (int length = Math.max(0, q.length() - maxEdits); length <= Math.min(name.length(), q.length() + maxEdits); length++) {
+            best = Math.min(best, distance(q, name.substring(0, length)));
+        }
+        return best;
+    }
+
+    private static int distance(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) d[i][0] = i;
+        for (int j = 0; j <= b.length(); j++) d[0][j] = j;
+
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+                }
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+}
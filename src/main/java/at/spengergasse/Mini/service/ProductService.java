@@ -48,17 +48,25 @@ package at.spengergasse.Mini.service;
 // ERROR level:
 //   - Unexpected failures
 
+import at.spengergasse.Mini.exceptions.ConflictException;
 import at.spengergasse.Mini.exceptions.ServiceException;
 import at.spengergasse.Mini.model.Product;
 import at.spengergasse.Mini.model.Shop;
 import at.spengergasse.Mini.persistence.ProductRepository;
 import at.spengergasse.Mini.persistence.ShopRepository;
+import at.spengergasse.Mini.support.RetryOnConflict;
 import at.spengergasse.Mini.validation.Guard;
+import at.spengergasse.Mini.validation.NameIndex;
+import at.spengergasse.Mini.viewmodel.ProductPatchRequest;
 import at.spengergasse.Mini.viewmodel.ProductRequest;
+import at.spengergasse.Mini.viewmodel.ProductView;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
@@ -72,17 +80,28 @@ public class ProductService {
     private final ProductRepository productRepository;
     private final ShopRepository shopRepository;
     private final Guard guard;
+    private final NameIndex nameIndex;
+    private final CatalogVersions catalogVersions;
+    private final CatalogStats catalogStats;
+    private final ProductSearchIndex searchIndex;
+    private final PriceIndex priceIndex;
 
+    @Value("${minishop.search.max-results:100}")
+    private int maxSearchResults;
+
+    @RetryOnConflict
     @Transactional
     public void deleteProduct(Long productId) {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> ServiceException.ofNotFound(productId));
 
         if (product.getShop() != null) {
-            throw new ServiceException("Produkt gehört zu einem Shop und kann nur über den Shop gelöscht werden!");
+            throw new ConflictException("Produkt gehört zu einem Shop und kann nur über den Shop gelöscht werden!");
         }
 
         productRepository.delete(product);
+        nameIndex.productRemoved(product.getName());
+        searchIndex.productRemoved(productId);
         LOGGER.info("Deleted product {} (not associated with any shop)", productId);
     }
 
@@ -94,31 +113,77 @@ public class ProductService {
                     .orElseThrow(() -> ServiceException.ofNotFound(shopId));
         }
 
+        // Konstruktor pflegt beide Seiten der Beziehung
         Product product = new Product(request.name(), request.price(), shop);
 
-        // Wenn Shop existiert, Bidirektionalität pflegen
-        if (shop != null) {
-            shop.getProducts().add(product);
-        }
-
         productRepository.save(product);
+        nameIndex.productAdded(product.getName());
+        searchIndex.productAdded(product.getId(), product.getName());
+        catalogStats.added(shopId, product.getPrice());
+        priceIndex.added(shopId, product.getId(), product.getPrice());
+        catalogVersions.changed(shopId);
         LOGGER.info("Created product '{}'", product.getName());
         return product;
     }
 
-    @Transactional
-    public Product updateProduct(Long productId, ProductRequest request) {
-        Product existing = productRepository.findById(productId)
-                .orElseThrow(() -> ServiceException.ofNotFound(productId));
+    // Für ShopService: Produkt ist dort für die Shop-Prüfung bereits geladen, kein zweites findById.
+    // MANDATORY: nur innerhalb der Schreib-Transaktion des Aufrufers (dort auch @RetryOnConflict),
+    // sonst würde das Klassen-Default readOnly greifen und Index/Statistik liefen der DB davon
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Product updateProduct(Product product, ProductRequest request) {
+        return apply(product, request);
+    }
+
+    // Produktsuche über alle Shops: Präfix + Tippfehler aus dem ProductSearchIndex,
+    // danach nur die Treffer per id als ProductView laden
+    public List<ProductView> searchProducts(String query, Integer limit) {
+        if (query == null || query.isBlank()) throw new IllegalArgumentException("Suchbegriff darf nicht leer sein!");
+        if (query.length() > 50) throw new IllegalArgumentException("Suchbegriff darf maximal 50 Zeichen lang sein!");
 
-        guard.validateProduct(request, productId);
+        int max = limit == null ? 20 : limit;
+        if (max < 1 || max > maxSearchResults) {
+            throw new IllegalArgumentException("Limit muss zwischen 1 und " + maxSearchResults + " liegen!");
+        }
 
-        Product updated = existing.withUpdatedValues(
-                request.name(),
-                request.price()
-        );
+        if (!searchIndex.isReady()) {
+            String prefix = ProductSearchIndex.normalize(query).replaceAll("([\\\\%_])", "\\\\$1") + "%";
+            return productRepository.findViewsByNamePrefix(prefix, Limit.of(max));
+        }
+        return productRepository.findViewsInOrder(searchIndex.search(query, max));
+    }
 
-        LOGGER.info("Updated product '{}' (id={})", existing.getName(), productId);
-        return productRepository.save(updated);
+    // Teil-Update: fehlende Felder werden mit den aktuellen Werten ergänzt und dann wie ein PUT geprüft
+    // Wie updateProduct: bereits geladenes Produkt, Transaktion des Aufrufers
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Product patchProduct(Product product, ProductPatchRequest patch) {
+        if (patch == null || patch.isEmpty()) {
+            throw new IllegalArgumentException("Es wurden keine Änderungen übergeben!");
+        }
+
+        ProductRequest merged = new ProductRequest(
+                patch.name() != null ? patch.name() : product.getName(),
+                patch.price() != null ? patch.price() : product.getPrice());
+        return apply(product, merged);
+    }
+
+    // Kein save() nötig: Dirty Checking + @DynamicUpdate schreiben nur die geänderten Spalten
+    private Product apply(Product product, ProductRequest request) {
+        guard.validateProduct(request, product.getId());
+
+        String previousName = product.getName();
+        long previousPrice = product.getPrice();
+        product.update(request.name(), request.price());
+
+        nameIndex.productRenamed(previousName, product.getName());
+        if (!previousName.equals(product.getName())) {
+            searchIndex.productRenamed(product.getId(), product.getName());
+        }
+        if (product.getShopId() != null) {
+            catalogStats.updated(product.getShopId(), previousPrice, product.getPrice());
+            priceIndex.priceChanged(product.getShopId(), product.getId(), previousPrice, product.getPrice());
+            catalogVersions.changed(product.getShopId());
+        }
+        LOGGER.info("Updated product '{}' (id={})", product.getName(), product.getId());
+        return product;
     }
 }
\ No newline at end of file
@@ -0,0 +1,12 @@
+package at.spengergasse.Mini.service;
+
+import at.spengergasse.Mini.viewmodel.ProductView;
+
+import java.io.IOException;
+
+// Empfänger für gestreamte Produkte (z.B. NDJSON-Export direkt in die HTTP-Response)
+
+@FunctionalInterface
+public interface ProductSink {
+    void accept(ProductView product) throws IOException;
+}
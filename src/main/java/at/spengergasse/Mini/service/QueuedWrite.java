@@ -0,0 +1,27 @@
+package at.spengergasse.Mini.service;
+
+import at.spengergasse.Mini.viewmodel.ProductRequest;
+
+// Ein angenommener, noch nicht geschriebener Produkt-Schreibzugriff (siehe WriteBehindQueue)
+// productId nur bei UPDATE_IN_SHOP, shopId bei CREATE optional
+
+public record QueuedWrite(String trackingId, Kind kind, Long shopId, Long productId, ProductRequest request) {
+
+    public enum Kind { ADD_TO_SHOP, UPDATE_IN_SHOP, CREATE }
+
+    // Ergebnis je Schreibzugriff: productId bei Erfolg, sonst die Fehlermeldung
+    public record Outcome(Long productId, String error) {
+
+        public static Outcome applied(Long productId) {
+            return new Outcome(productId, null);
+        }
+
+        public static Outcome failed(String error) {
+            return new Outcome(null, error);
+        }
+
+        public boolean isApplied() {
+            return error == null;
+        }
+    }
+}
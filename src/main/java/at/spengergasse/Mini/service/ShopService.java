@@ -48,21 +48,46 @@ package at.spengergasse.Mini.service;
 // ERROR level:
 //   - Unexpected failures
 
+import at.spengergasse.Mini.exceptions.ConflictException;
 import at.spengergasse.Mini.exceptions.ServiceException;
 import at.spengergasse.Mini.model.Product;
 import at.spengergasse.Mini.model.Shop;
 import at.spengergasse.Mini.persistence.ProductRepository;
 import at.spengergasse.Mini.persistence.ShopRepository;
+import at.spengergasse.Mini.support.RetryOnConflict;
 import at.spengergasse.Mini.validation.Guard;
+import at.spengergasse.Mini.validation.NameIndex;
+import at.spengergasse.Mini.viewmodel.BulkImportResponse;
+import at.spengergasse.Mini.viewmodel.PriceRangePage;
+import at.spengergasse.Mini.viewmodel.ProductPage;
+import at.spengergasse.Mini.viewmodel.ProductPatchRequest;
 import at.spengergasse.Mini.viewmodel.ProductRequest;
+import at.spengergasse.Mini.viewmodel.ProductSort;
+import at.spengergasse.Mini.viewmodel.ProductView;
 import at.spengergasse.Mini.viewmodel.ShopRequest;
+import at.spengergasse.Mini.viewmodel.ShopStatsView;
+import at.spengergasse.Mini.viewmodel.ShopView;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -74,18 +99,40 @@ public class ShopService {
     private final ProductRepository productRepository;
     private final ProductService productService;
     private final Guard guard;
+    private final NameIndex nameIndex;
+    private final CatalogVersions catalogVersions;
+    private final CatalogStats catalogStats;
+    private final PriceIndex priceIndex;
+    private final ProductSearchIndex searchIndex;
+    private final EntityManager entityManager;
+
+    @Value("${minishop.products.page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${minishop.products.max-page-size:500}")
+    private int maxPageSize;
+
+    @Value("${minishop.bulk.max-items:50000}")
+    private int maxBulkItems;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:500}")
+    private int batchSize;
 
     @Transactional
     public Shop createShop(ShopRequest request) {
         guard.validateShop(request);
 
-        shopRepository.findByShopName(request.shopName()).ifPresent(existing -> {
-            throw new ServiceException("Shopname '" + request.shopName() + "' existiert bereits!");
-        });
+        if (nameIndex.mightContainShop(request.shopName())) {
+            shopRepository.findByShopName(request.shopName()).ifPresent(existing -> {
+                throw new ConflictException("Shopname '" + request.shopName() + "' existiert bereits!");
+            });
+        }
 
         Shop shop = new Shop(request.shopName());
 
         shopRepository.save(shop);
+        nameIndex.shopAdded(shop.getShopName());
+        catalogStats.created(shop.getId());
 
         LOGGER.info("Created shop '{}'", shop.getShopName());
         return shop;
@@ -96,6 +143,21 @@ public class ShopService {
                 .orElseThrow(() -> ServiceException.ofNotFound(shopId));
     }
 
+    // Existenzprüfung ohne den Shop zu laden (z.B. 404 vor dem Start eines Streams)
+    public void requireShop(Long shopId) {
+        if (!shopRepository.existsById(shopId)) {
+            throw ServiceException.ofNotFound(shopId);
+        }
+    }
+
+    // Lese-Seite (GET): Projektionen statt Entities, zwei flache Queries
+    public ShopView getShopView(Long shopId) {
+        ShopView shop = shopRepository.findViewById(shopId)
+                .orElseThrow(() -> ServiceException.ofNotFound(shopId));
+        return shop.withProducts(productRepository.findViewsByShopId(shopId));
+    }
+
+    @RetryOnConflict
     @Transactional
     public Product addProductToShop(Long shopId, ProductRequest request) {
         Shop shop = shopRepository.findById(shopId)
@@ -105,14 +167,232 @@ public class ShopService {
 
         Product product = new Product(request.name(), request.price(), shop);
 
-        shop.getProducts().add(product);
-
         productRepository.save(product);
+        nameIndex.productAdded(product.getName());
+        searchIndex.productAdded(product.getId(), product.getName());
+        catalogStats.added(shopId, product.getPrice());
+        priceIndex.added(shopId, product.getId(), product.getPrice());
+        catalogVersions.changed(shopId);
 
         LOGGER.info("Added product '{}' to shop '{}'", product.getName(), shop.getShopName());
         return product;
     }
 
+    // Bulk-Import
+    // ---------------------------------
+    // - Feldprüfung je Eintrag ohne DB-Zugriff, Fehler werden gesammelt statt abzubrechen
+    // - Namens-Eindeutigkeit mengenbasiert (IN-Query je Block) statt findByName pro Produkt
+    // - Inserts laufen als JDBC-Batches (SEQUENCE-IDs, hibernate.jdbc.batch_size)
+    // - Persistence Context wird je Batch geleert, damit er nicht mit jedem Produkt wächst
+    @Transactional
+    public BulkImportResponse importProducts(Long shopId, List<ProductRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new IllegalArgumentException("Es wurden keine Produkte übergeben!");
+        }
+        if (requests.size() > maxBulkItems) {
+            throw new IllegalArgumentException("Maximal " + maxBulkItems + " Produkte pro Bulk-Import erlaubt!");
+        }
+        if (!shopRepository.existsById(shopId)) {
+            throw ServiceException.ofNotFound(shopId);
+        }
+
+        List<BulkImportResponse.Error> errors = new ArrayList<>();
+        List<Integer> candidates = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+
+        for (int i = 0; i < requests.size(); i++) {
+            ProductRequest request = requests.get(i);
+            try {
+                guard.validateProductFields(request);
+            } catch (IllegalArgumentException e) {
+                errors.add(new BulkImportResponse.Error(i, request == null ? null : request.name(), e.getMessage()));
+                continue;
+            }
+            if (!names.add(request.name())) {
+                errors.add(new BulkImportResponse.Error(i, request.name(),
+                        "Produktname '" + request.name() + "' kommt im Import mehrfach vor!"));
+                continue;
+            }
+            candidates.add(i);
+        }
+
+        Set<String> existingNames = findExistingNames(names);
+
+        Shop shop = shopRepository.getReferenceById(shopId);
+        Map<Long, String> importedNames = new HashMap<>();
+        LongSummaryStatistics importedPrices = new LongSummaryStatistics();
+        long[] importedIds = new long[candidates.size()];
+        long[] importedPriceValues = new long[candidates.size()];
+        int imported = 0;
+        for (int index : candidates) {
+            ProductRequest request = requests.get(index);
+            if (existingNames.contains(request.name())) {
+                errors.add(new BulkImportResponse.Error(index, request.name(),
+                        "Produktname '" + request.name() + "' existiert bereits!"));
+                continue;
+            }
+
+            Product product = Product.forShopReference(request.name(), request.price(), shop);
+            productRepository.save(product);
+            nameIndex.productAdded(request.name());
+            importedNames.put(product.getId(), request.name());
+            importedPrices.accept(request.price());
+            importedIds[imported] = product.getId();
+            importedPriceValues[imported] = request.price();
+
+            if (++imported % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+                shop = shopRepository.getReferenceById(shopId);
+            }
+        }
+
+        searchIndex.productsAdded(importedNames);
+        catalogStats.added(shopId, importedPrices);
+        priceIndex.added(shopId, Arrays.copyOf(importedIds, imported), Arrays.copyOf(importedPriceValues, imported));
+        catalogVersions.changed(shopId);
+        errors.sort(Comparator.comparingInt(BulkImportResponse.Error::index));
+        LOGGER.info("Imported {} of {} products into shop {}", imported, requests.size(), shopId);
+        return new BulkImportResponse(requests.size(), imported, errors);
+    }
+
+    // Write-Behind-Batch (WriteBehindQueue): viele angenommene Schreibzugriffe in einer Transaktion
+    // ---------------------------------
+    // - Felder wurden schon beim Annehmen geprüft, hier nur, was sich seitdem geändert haben kann
+    // - Namens-Eindeutigkeit mengenbasiert für alle neuen Namen des Batches (eine IN-Query)
+    // - Updates laden alle betroffenen Produkte mit einer Query, Inserts laufen als JDBC-Batch
+    // - Statistik und Katalog-Version einmal je Shop statt je Produkt
+    // Fachliche Fehler einzelner Einträge kommen als Outcome zurück und brechen den Batch nicht ab;
+    // scheitert die Transaktion selbst (z.B. Shop inzwischen gelöscht), wiederholt die Queue einzeln
+    @Transactional
+    public Map<String, QueuedWrite.Outcome> applyWrites(List<QueuedWrite> writes) {
+        Map<Long, Product> products = new HashMap<>();
+        List<Long> productIds = writes.stream()
+                .filter(write -> write.kind() == QueuedWrite.Kind.UPDATE_IN_SHOP)
+                .map(QueuedWrite::productId)
+                .toList();
+        productRepository.findAllById(productIds).forEach(product -> products.put(product.getId(), product));
+
+        Set<String> newNames = new HashSet<>();
+        for (QueuedWrite write : writes) {
+            Product product = products.get(write.productId());
+            if (product == null || !product.getName().equals(write.request().name())) {
+                newNames.add(write.request().name());
+            }
+        }
+        Set<String> takenNames = findExistingNames(newNames);
+        Set<String> claimedNames = new HashSet<>();
+
+        Map<String, QueuedWrite.Outcome> outcomes = new HashMap<>();
+        Map<Long, Shop> shops = new HashMap<>();
+        Map<Long, String> addedNames = new HashMap<>();
+        Map<Long, LongSummaryStatistics> addedPrices = new HashMap<>();
+        Map<Long, long[]> priceChanges = new HashMap<>(); // shopId -> {Preis-Differenz, Anzahl Updates}
+        Map<Long, long[]> productPrices = new HashMap<>(); // productId -> {Preis vor dem Batch, Preis danach}
+        Map<Long, Map<Long, Long>> addedProducts = new HashMap<>(); // shopId -> productId -> Preis
+
+        for (QueuedWrite write : writes) {
+            String name = write.request().name();
+            long price = write.request().price();
+
+            if (write.kind() == QueuedWrite.Kind.UPDATE_IN_SHOP) {
+                Product product = products.get(write.productId());
+                if (product == null) {
+                    outcomes.put(write.trackingId(), QueuedWrite.Outcome.failed(ServiceException.ofNotFound(write.productId()).getMessage()));
+                    continue;
+                }
+                if (!product.belongsTo(write.shopId())) {
+                    outcomes.put(write.trackingId(), QueuedWrite.Outcome.failed("Produkt gehört nicht zu diesem Shop!"));
+                    continue;
+                }
+
+                boolean renamed = !product.getName().equals(name);
+                if (renamed && (takenNames.contains(name) || !claimedNames.add(name))) {
+                    outcomes.put(write.trackingId(), QueuedWrite.Outcome.failed("Produktname '" + name + "' existiert bereits!"));
+                    continue;
+                }
+
+                String previousName = product.getName();
+                long previousPrice = product.getPrice();
+                product.update(name, price);
+                nameIndex.productRenamed(previousName, name);
+                if (renamed) {
+                    searchIndex.productRenamed(product.getId(), name);
+                }
+
+                long[] change = priceChanges.computeIfAbsent(write.shopId(), id -> new long[2]);
+                change[0] += price - previousPrice;
+                change[1]++;
+                productPrices.computeIfAbsent(product.getId(), id -> new long[]{previousPrice, 0})[1] = price;
+                outcomes.put(write.trackingId(), QueuedWrite.Outcome.applied(product.getId()));
+            } else {
+                if (takenNames.contains(name) || !claimedNames.add(name)) {
+                    outcomes.put(write.trackingId(), QueuedWrite.Outcome.failed("Produktname '" + name + "' existiert bereits!"));
+                    continue;
+                }
+
+                Shop shop = write.shopId() == null ? null : shops.computeIfAbsent(write.shopId(), shopRepository::getReferenceById);
+                Product product = Product.forShopReference(name, price, shop);
+                productRepository.save(product);
+                nameIndex.productAdded(name);
+                addedNames.put(product.getId(), name);
+                if (write.shopId() != null) {
+                    addedPrices.computeIfAbsent(write.shopId(), id -> new LongSummaryStatistics()).accept(price);
+                    addedProducts.computeIfAbsent(write.shopId(), id -> new HashMap<>()).put(product.getId(), price);
+                }
+                outcomes.put(write.trackingId(), QueuedWrite.Outcome.applied(product.getId()));
+            }
+        }
+
+        searchIndex.productsAdded(addedNames);
+        addedPrices.forEach((shopId, prices) -> catalogStats.added(shopId, prices));
+        priceChanges.forEach((shopId, change) -> catalogStats.updated(shopId, change[0], change[1]));
+        updatePriceIndex(products, productPrices, addedProducts);
+
+        Set<Long> changedShops = new HashSet<>(addedPrices.keySet());
+        changedShops.addAll(priceChanges.keySet());
+        changedShops.forEach(catalogVersions::changed);
+
+        LOGGER.info("Applied batch of {} queued writes to {} shops", writes.size(), changedShops.size());
+        return outcomes;
+    }
+
+    // Netto-Änderung je Produkt (erster alter Preis -> letzter neuer Preis), ein Merge je Shop
+    private void updatePriceIndex(Map<Long, Product> products, Map<Long, long[]> productPrices,
+                                  Map<Long, Map<Long, Long>> addedProducts) {
+        addedProducts.forEach((shopId, added) -> priceIndex.added(shopId,
+                added.keySet().stream().mapToLong(Long::longValue).toArray(),
+                added.values().stream().mapToLong(Long::longValue).toArray()));
+
+        Map<Long, List<Long>> changedByShop = new HashMap<>();
+        productPrices.forEach((productId, prices) -> {
+            if (prices[0] != prices[1]) {
+                changedByShop.computeIfAbsent(products.get(productId).getShopId(), id -> new ArrayList<>()).add(productId);
+            }
+        });
+        changedByShop.forEach((shopId, productIds) -> priceIndex.pricesChanged(shopId,
+                productIds.stream().mapToLong(Long::longValue).toArray(),
+                productIds.stream().mapToLong(id -> productPrices.get(id)[0]).toArray(),
+                productIds.stream().mapToLong(id -> productPrices.get(id)[1]).toArray()));
+    }
+
+    private Set<String> findExistingNames(Set<String> names) {
+        Set<String> existing = new HashSet<>();
+        List<String> chunk = new ArrayList<>(1000);
+        for (String name : names) {
+            chunk.add(name);
+            if (chunk.size() == 1000) {
+                existing.addAll(productRepository.findExistingNames(chunk));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            existing.addAll(productRepository.findExistingNames(chunk));
+        }
+        return existing;
+    }
+
+    @RetryOnConflict
     @Transactional
     public void removeProductFromShop(Long shopId, Long productId) {
         Shop shop = shopRepository.findById(shopId)
@@ -121,53 +401,146 @@ public class ShopService {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> ServiceException.ofNotFound(productId));
 
-        if (!shop.getProducts().contains(product)) {
-            throw new ServiceException("Produkt gehört nicht zu diesem Shop!");
+        // Zugehörigkeit über den FK prüfen statt Shop.products zu laden und zu durchsuchen
+        if (!product.belongsTo(shopId)) {
+            throw new ConflictException("Produkt gehört nicht zu diesem Shop!");
         }
 
-        shop.getProducts().remove(product);
-        product = product.withUpdatedValues(product.getName(), product.getPrice(), null);
-
-        productRepository.save(product);
+        // FK an der verwalteten Entity lösen: Dirty Checking schreibt ein UPDATE mit Versionsprüfung (@Version),
+        // ein paralleles Entfernen oder Preis-Update scheitert beim Flush -> neu lesen und wiederholen (@RetryOnConflict).
+        // Kein Bulk-UPDATE: das würde die ganzen Cache-Regionen product/shop-products und den Persistence Context räumen.
+        // Den Collection-Cache-Eintrag dieses Shops räumt Hibernate selbst (auto_evict_collection_cache).
+        // Flush vorab, damit Statistik und Preis-Index nur nach erfolgreichem Lösen nachziehen
+        product.setShop(null);
+        productRepository.flush();
+        catalogStats.removed(shopId, product.getPrice());
+        priceIndex.removed(shopId, productId, product.getPrice());
+        catalogVersions.changed(shopId);
         LOGGER.info("Removed product '{}' from shop '{}'", product.getName(), shop.getShopName());
     }
 
+    // Update in place über ProductService (Validierung dort), hier nur Shop-Zugehörigkeit
+    @RetryOnConflict
     @Transactional
     public Product updateProductInShop(Long shopId, Long productId, ProductRequest request) {
-        Shop shop = shopRepository.findById(shopId)
-                .orElseThrow(() -> ServiceException.ofNotFound(shopId));
+        return productService.updateProduct(requireProductInShop(shopId, productId), request);
+    }
+
+    @RetryOnConflict
+    @Transactional
+    public Product patchProductInShop(Long shopId, Long productId, ProductPatchRequest patch) {
+        return productService.patchProduct(requireProductInShop(shopId, productId), patch);
+    }
+
+    // Liefert das geladene Produkt weiter, ProductService lädt es nicht noch einmal
+    private Product requireProductInShop(Long shopId, Long productId) {
+        if (!shopRepository.existsById(shopId)) {
+            throw ServiceException.ofNotFound(shopId);
+        }
 
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> ServiceException.ofNotFound(productId));
 
-        if (!shop.getProducts().contains(product)) {
-            throw new ServiceException("Produkt gehört nicht zu diesem Shop!");
+        if (!product.belongsTo(shopId)) {
+            throw new ConflictException("Produkt gehört nicht zu diesem Shop!");
         }
+        return product;
+    }
 
-        guard.validateProduct(request, productId);
+    // Katalog-Statistik aus den mitgeführten Zählern (CatalogStats), ein Zugriff per Primärschlüssel
+    public ShopStatsView getShopStats(Long shopId) {
+        if (!shopRepository.existsById(shopId)) {
+            throw ServiceException.ofNotFound(shopId);
+        }
+        return catalogStats.get(shopId);
+    }
+
+    // Keyset-Pagination: lädt nur pageSize + 1 Zeilen über den Index (shop_id, sortierwert, id),
+    // die Shop.products-Collection wird dabei nicht angefasst
+    public ProductPage getProductPage(Long shopId, String sort, String cursor, Integer size) {
+        if (!shopRepository.existsById(shopId)) {
+            throw ServiceException.ofNotFound(shopId);
+        }
 
-        LOGGER.info("Updated product '{}' (id={}) in shop '{}'", product.getName(), productId, shop.getShopName());
-        return productService.updateProduct(productId, request);
+        ProductSort order = ProductSort.of(sort);
+        int pageSize = resolvePageSize(size);
+        ProductCursor after = (cursor == null || cursor.isBlank())
+                ? ProductCursor.first(order)
+                : ProductCursor.decode(cursor, order);
+
+        // eine Zeile mehr lesen, um zu wissen, ob es eine nächste Seite gibt
+        Limit limit = Limit.of(pageSize + 1);
+        List<ProductView> rows = switch (order) {
+            case ID -> productRepository.findPageOrderById(shopId, after.id(), limit);
+            case NAME -> productRepository.findPageOrderByName(shopId, after.value(), after.id(), limit);
+            case PRICE -> productRepository.findPageOrderByPrice(shopId, after.priceValue(), after.id(), limit);
+        };
+
+        if (rows.size() <= pageSize) {
+            return new ProductPage(rows, null);
+        }
+
+        List<ProductView> items = rows.subList(0, pageSize);
+        String nextCursor = ProductCursor.after(order, items.get(pageSize - 1)).encode();
+        return new ProductPage(items, nextCursor);
     }
 
-    public List<Product> getAllProductsFromShop(Long shopId) {
-        Shop shop = shopRepository.findById(shopId)
-                .orElseThrow(() -> ServiceException.ofNotFound(shopId));
-        return shop.getProducts();
+    // Preisbereich über den In-Memory-PriceIndex (binäre Suche), danach nur die Treffer der Seite per id laden
+    public PriceRangePage getProductsInPriceRange(Long shopId, long min, long max, int offset, Integer size) {
+        if (!shopRepository.existsById(shopId)) {
+            throw ServiceException.ofNotFound(shopId);
+        }
+        if (min < 0 || max < min) {
+            throw new IllegalArgumentException("Preisbereich ungültig: 0 <= min <= max erwartet!");
+        }
+        if (offset < 0) {
+            throw new IllegalArgumentException("Offset darf nicht negativ sein!");
+        }
+
+        PriceIndex.Range range = priceIndex.find(shopId, min, max, offset, resolvePageSize(size));
+        List<Long> ids = Arrays.stream(range.ids()).boxed().toList();
+        return new PriceRangePage(range.total(), offset, productRepository.findViewsInOrder(ids));
+    }
+
+    // Streamt alle Produkte eines Shops an den Sink, ohne sie gleichzeitig im Speicher zu halten:
+    // Projektionen landen nicht im Persistence Context, jede Zeile ist nach dem Schreiben Garbage
+    public long exportProducts(Long shopId, ProductSink sink) throws IOException {
+        long count = 0;
+        try (Stream<ProductView> products = productRepository.streamViewsByShopId(shopId)) {
+            Iterator<ProductView> iterator = products.iterator();
+            while (iterator.hasNext()) {
+                sink.accept(iterator.next());
+                count++;
+            }
+        }
+
+        LOGGER.info("Exported {} products of shop {}", count, shopId);
+        return count;
     }
 
+    private int resolvePageSize(Integer size) {
+        if (size == null) return defaultPageSize;
+        if (size < 1 || size > maxPageSize) {
+            throw new IllegalArgumentException("Seitengröße muss zwischen 1 und " + maxPageSize + " liegen!");
+        }
+        return size;
+    }
+
+    // Mengenbasiert: ein UPDATE löst alle Produkte vom Shop, je ein DELETE entfernt den Shop und seine Statistik-Zeile
+    // Weder der Shop noch seine Produkte werden in den Persistence Context geladen,
+    // die Transaktion dauert unabhängig von der Katalog-Größe nur wenige Statements
     @Transactional
     public void deleteShop(Long shopId) {
-        Shop shop = shopRepository.findById(shopId)
+        String shopName = shopRepository.findShopNameById(shopId)
                 .orElseThrow(() -> ServiceException.ofNotFound(shopId));
 
-        // Produkte vom Shop trennen, bevor der Shop gelöscht wird
-        for (Product product : shop.getProducts()) {
-            product = product.withUpdatedValues(product.getName(), product.getPrice(), null);
-            productRepository.save(product);
-        }
+        int detached = productRepository.detachAllFromShop(shopId);
+        shopRepository.deleteShopById(shopId);
+        catalogStats.deleted(shopId);
+        priceIndex.shopDeleted(shopId);
 
-        shopRepository.delete(shop);
-        LOGGER.info("Deleted shop '{}' (id={})", shop.getShopName(), shopId);
+        nameIndex.shopRemoved(shopName);
+        catalogVersions.changed(shopId);
+        LOGGER.info("Deleted shop '{}' (id={}), {} products detached", shopName, shopId, detached);
     }
 }
\ No newline at end of file
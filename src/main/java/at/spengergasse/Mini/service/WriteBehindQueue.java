@@ -0,0 +1,274 @@
+package at.spengergasse.Mini.service;
+
+// Write-Behind für Produkt-Schreibzugriffe (opt-in)
+// ---------------------------------
+// Feed-Integrationen schicken Bursts von zehntausenden kleinen Writes; synchron zahlt jeder
+// davon eine eigene Transaktion samt Commit. Mit "Prefer: respond-async" wird stattdessen:
+//
+//   1. sofort geprüft (Felder, Shop/Produkt vorhanden, Name frei) -> Fehler wie synchron (400/404)
+//   2. in eine begrenzte Queue gestellt -> 202 Accepted + Tracking-ID (Queue voll -> 503)
+//   3. von einem Worker gesammelt (bis batch-size oder max-delay-ms), mehrere Updates desselben
+//      Produkts zusammengefasst (das letzte gewinnt, die früheren sind SUPERSEDED)
+//   4. in einer Transaktion geschrieben (ShopService.applyWrites)
+//
+// Scheitert die Batch-Transaktion als Ganzes, wird jeder Eintrag einzeln über die normalen
+// Service-Methoden wiederholt, damit ein fehlerhafter Eintrag nicht den ganzen Batch kostet.
+// Status je Tracking-ID: GET /api/shop/writes/{trackingId}, begrenzt und mit Ablaufzeit (Caffeine).
+//
+// Achtung: angenommene, noch nicht geschriebene Einträge liegen nur im Speicher.
+// Beim regulären Shutdown wird die Queue noch abgearbeitet, bei einem Absturz gehen sie verloren.
+
+import at.spengergasse.Mini.exceptions.ConflictException;
+import at.spengergasse.Mini.exceptions.ServiceException;
+import at.spengergasse.Mini.model.Product;
+import at.spengergasse.Mini.persistence.ProductRepository;
+import at.spengergasse.Mini.persistence.ShopRepository;
+import at.spengergasse.Mini.validation.Guard;
+import at.spengergasse.Mini.viewmodel.ProductRequest;
+import at.spengergasse.Mini.viewmodel.WriteStatusView;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class WriteBehindQueue {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WriteBehindQueue.class);
+
+    private final ShopService shopService;
+    private final ProductService productService;
+    private final ShopRepository shopRepository;
+    private final ProductRepository productRepository;
+    private final Guard guard;
+    private final MeterRegistry registry;
+
+    private final boolean enabled;
+    private final int batchSize;
+    private final long maxDelayNanos;
+    private final BlockingQueue<QueuedWrite> queue;
+    private final Cache<String, WriteStatusView> statuses;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    WriteBehindQueue(ShopService shopService,
+                     ProductService productService,
+                     ShopRepository shopRepository,
+                     ProductRepository productRepository,
+                     Guard guard,
+                     MeterRegistry registry,
+                     @Value("${minishop.write-behind.enabled:false}") boolean enabled,
+                     @Value("${minishop.write-behind.queue-capacity:20000}") int queueCapacity,
+                     @Value("${minishop.write-behind.batch-size:500}") int batchSize,
+                     @Value("${minishop.write-behind.max-delay-ms:50}") long maxDelayMillis,
+                     @Value("${minishop.write-behind.status-max-entries:200000}") long statusMaxEntries,
+                     @Value("${minishop.write-behind.status-ttl-minutes:60}") long statusTtlMinutes) {
+        this.shopService = shopService;
+        this.productService = productService;
+        this.shopRepository = shopRepository;
+        this.productRepository = productRepository;
+        this.guard = guard;
+        this.registry = registry;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.statuses = Caffeine.newBuilder()
+                .maximumSize(statusMaxEntries)
+                .expireAfterWrite(Duration.ofMinutes(statusTtlMinutes))
+                .build();
+        registry.gaugeCollectionSize("minishop.write-behind.queue", Tags.empty(), queue);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) return;
+        running = true;
+        worker = Thread.ofPlatform().name("write-behind").daemon(true).start(this::drain);
+        LOGGER.info("Write-behind queue started (capacity {}, batch size {})", queue.remainingCapacity(), batchSize);
+    }
+
+    // Shutdown: keine neuen Einträge mehr, der Worker schreibt die Queue noch leer
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            worker.join(TimeUnit.SECONDS.toMillis(30));
+        }
+    }
+
+    // Annehmen: dieselben Prüfungen wie synchron (Shop/Produkt über den Second-Level-Cache), dann einreihen
+    public WriteStatusView submitAdd(Long shopId, ProductRequest request) {
+        requireShop(shopId);
+        guard.validateProduct(request, null);
+        return enqueue(QueuedWrite.Kind.ADD_TO_SHOP, shopId, null, request);
+    }
+
+    public WriteStatusView submitUpdate(Long shopId, Long productId, ProductRequest request) {
+        requireShop(shopId);
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> ServiceException.ofNotFound(productId));
+        if (!product.belongsTo(shopId)) {
+            throw new ConflictException("Produkt gehört nicht zu diesem Shop!");
+        }
+        guard.validateProduct(request, productId);
+        return enqueue(QueuedWrite.Kind.UPDATE_IN_SHOP, shopId, productId, request);
+    }
+
+    public WriteStatusView submitCreate(ProductRequest request, Long shopId) {
+        if (shopId != null) {
+            requireShop(shopId);
+        }
+        guard.validateProduct(request, null);
+        return enqueue(QueuedWrite.Kind.CREATE, shopId, null, request);
+    }
+
+    public WriteStatusView status(String trackingId) {
+        WriteStatusView status = statuses.getIfPresent(trackingId);
+        if (status == null) {
+            throw new ServiceException("Tracking-ID '" + trackingId + "' unbekannt oder abgelaufen!");
+        }
+        return status;
+    }
+
+    private void requireShop(Long shopId) {
+        if (shopRepository.findById(shopId).isEmpty()) {
+            throw ServiceException.ofNotFound(shopId);
+        }
+    }
+
+    private WriteStatusView enqueue(QueuedWrite.Kind kind, Long shopId, Long productId, ProductRequest request) {
+        if (!running) {
+            throw new RejectedExecutionException("Write-Behind ist nicht aktiv!");
+        }
+
+        String trackingId = UUID.randomUUID().toString();
+        WriteStatusView status = WriteStatusView.queued(trackingId, kind.name(), productId);
+        statuses.put(trackingId, status);
+
+        if (!queue.offer(new QueuedWrite(trackingId, kind, shopId, productId, request))) {
+            statuses.invalidate(trackingId);
+            registry.counter("minishop.write-behind.rejected").increment();
+            throw new RejectedExecutionException("Write-Behind-Queue ist voll, bitte später erneut senden!");
+        }
+        return status;
+    }
+
+    // Worker: erster Eintrag blockierend, danach sammeln bis batchSize oder maxDelay
+    private void drain() {
+        List<QueuedWrite> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                QueuedWrite first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) break;
+
+                    QueuedWrite next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                LOGGER.error("Write-behind batch of {} writes failed", batch.size(), e);
+                batch.forEach(write -> complete(write.trackingId(), QueuedWrite.Outcome.failed("Unerwarteter Fehler beim Schreiben")));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<QueuedWrite> batch) {
+        List<QueuedWrite> writes = coalesce(batch);
+
+        Map<String, QueuedWrite.Outcome> outcomes;
+        try {
+            outcomes = shopService.applyWrites(writes);
+            registry.counter("minishop.write-behind.batches", "mode", "batch").increment();
+        } catch (RuntimeException e) {
+            LOGGER.warn("Write-behind batch of {} writes rolled back ({}), retrying one by one", writes.size(), e.getMessage());
+            registry.counter("minishop.write-behind.batches", "mode", "single").increment();
+            outcomes = new LinkedHashMap<>();
+            for (QueuedWrite write : writes) {
+                outcomes.put(write.trackingId(), applySingle(write));
+            }
+        }
+
+        outcomes.forEach(this::complete);
+    }
+
+    // Mehrere Updates desselben Produkts im Batch: nur das letzte wird geschrieben, und zwar an seiner
+    // Position in der Ankunftsreihenfolge (Namenskonflikte mit früheren Anlagen entscheidet applyWrites der Reihe nach)
+    private List<QueuedWrite> coalesce(List<QueuedWrite> batch) {
+        Map<Long, QueuedWrite> latestUpdate = new HashMap<>();
+        for (QueuedWrite write : batch) {
+            if (write.kind() == QueuedWrite.Kind.UPDATE_IN_SHOP) {
+                latestUpdate.put(write.productId(), write);
+            }
+        }
+
+        List<QueuedWrite> writes = new ArrayList<>(batch.size());
+        for (QueuedWrite write : batch) {
+            QueuedWrite latest = write.kind() == QueuedWrite.Kind.UPDATE_IN_SHOP ? latestUpdate.get(write.productId()) : write;
+            if (latest == write) {
+                writes.add(write);
+                continue;
+            }
+            statuses.asMap().computeIfPresent(write.trackingId(), (id, status) -> status.supersededBy(latest.trackingId()));
+            registry.counter("minishop.write-behind.coalesced").increment();
+        }
+        return writes;
+    }
+
+    private QueuedWrite.Outcome applySingle(QueuedWrite write) {
+        try {
+            Product product = switch (write.kind()) {
+                case ADD_TO_SHOP -> shopService.addProductToShop(write.shopId(), write.request());
+                case UPDATE_IN_SHOP -> shopService.updateProductInShop(write.shopId(), write.productId(), write.request());
+                case CREATE -> productService.createProduct(write.request(), write.shopId());
+            };
+            return QueuedWrite.Outcome.applied(product.getId());
+        } catch (RuntimeException e) {
+            return QueuedWrite.Outcome.failed(e.getMessage());
+        }
+    }
+
+    private void complete(String trackingId, QueuedWrite.Outcome outcome) {
+        registry.counter("minishop.write-behind.writes", "outcome", outcome.isApplied() ? "applied" : "failed").increment();
+        statuses.asMap().computeIfPresent(trackingId, (id, status) -> outcome.isApplied()
+                ? status.applied(outcome.productId())
+                : status.failed(outcome.error()));
+    }
+}
@@ -0,0 +1,257 @@
+package at.spengergasse.Mini.support;
+
+// Admission Control: Bulkheads je Endpunkt-Klasse + Load Shedding nach Wartezeit
+// ---------------------------------
+// Ohne Trennung belegen bei Lastspitzen ein paar langsame deleteShop-/Bulk-Aufrufe alle Tomcat-Threads
+// und Hikari-Connections, und günstige Lesezugriffe fallen mit aus. Daher bekommt jede Klasse
+// (READ, WRITE, EXPENSIVE, siehe @Bulkhead an den Controller-Methoden) einen eigenen Semaphore:
+//
+//   1. Permit frei                           -> sofort ausführen
+//   2. Warteschlange voll (max-queue)        -> sofort 503
+//   3. Wartezeit seit einem Intervall dauerhaft über target-queue-ms -> sofort 503 (Überlast)
+//   4. sonst warten, höchstens max-queue-ms  -> danach 503
+//
+// Punkt 3 ist adaptiv (angelehnt an CoDel): nicht die Länge der Warteschlange, sondern wie lange
+// Requests darin stehen entscheidet. Eine kurze Spitze wird abgefedert; bleibt die Wartezeit
+// länger als interval-ms über dem Ziel, werden neue Requests abgewiesen, bis wieder einer ohne
+// nennenswertes Warten durchkommt. 503 kommen als ProblemDetail mit Retry-After (GlobalExceptionHandler).
+//
+// Streaming-Responses (ResponseEntity<StreamingResponseBody>, z.B. der Export) laufen nach dem Return der
+// Controller-Methode asynchron weiter und halten dabei eine DB-Connection: der Permit wird an den Body
+// weitergereicht und erst nach dem Schreiben bzw. beim Abschluss der Async-Verarbeitung (auch Timeout/Fehler) frei.
+//
+// Mit Virtual Threads (Profil virtual-threads) begrenzt kein Tomcat-Threadpool mehr: dann muss die Summe der
+// max-concurrent in den Hikari-Pool passen, sonst warten die Requests erst am Pool statt hier. Beim Start
+// wird das geprüft und eine Warnung geloggt.
+//
+// Metriken: minishop.bulkhead.queue{class} (Timer Wartezeit), minishop.bulkhead.rejected{class, reason},
+//           minishop.bulkhead.active{class}, minishop.bulkhead.waiting{class}
+
+import at.spengergasse.Mini.exceptions.OverloadedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class AdmissionControl {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdmissionControl.class);
+
+    private final MeterRegistry registry;
+    private final boolean enabled;
+    private final Map<EndpointClass, Limiter> limiters = new EnumMap<>(EndpointClass.class);
+
+    public AdmissionControl(MeterRegistry registry, Environment environment) {
+        this.registry = registry;
+        this.enabled = environment.getProperty("minishop.bulkhead.enabled", Boolean.class, true);
+        long intervalMillis = environment.getProperty("minishop.bulkhead.interval-ms", Long.class, 100L);
+
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            String prefix = "minishop.bulkhead." + endpointClass.propertyName + ".";
+            limiters.put(endpointClass, new Limiter(endpointClass.propertyName,
+                    environment.getProperty(prefix + "max-concurrent", Integer.class, endpointClass.maxConcurrent),
+                    environment.getProperty(prefix + "max-queue", Integer.class, endpointClass.maxQueue),
+                    environment.getProperty(prefix + "target-queue-ms", Long.class, endpointClass.targetQueueMillis),
+                    environment.getProperty(prefix + "max-queue-ms", Long.class, endpointClass.maxQueueMillis),
+                    intervalMillis));
+        }
+        checkPoolSize(environment);
+    }
+
+    private void checkPoolSize(Environment environment) {
+        if (!enabled || !environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false)) {
+            return;
+        }
+        int poolSize = environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10);
+        int maxConcurrent = limiters.values().stream().mapToInt(limiter -> limiter.maxConcurrent).sum();
+        if (maxConcurrent > poolSize) {
+            LOGGER.warn("Virtual threads enabled, but bulkheads admit {} concurrent requests for a pool of {} connections",
+                    maxConcurrent, poolSize);
+        }
+    }
+
+    @Around("@annotation(bulkhead)")
+    public Object admit(ProceedingJoinPoint joinPoint, Bulkhead bulkhead) throws Throwable {
+        if (!enabled) {
+            return joinPoint.proceed();
+        }
+
+        Limiter limiter = limiters.get(bulkhead.value());
+        limiter.acquire();
+        Permit permit = new Permit(limiter);
+        boolean handedOver = false;
+        try {
+            Object result = joinPoint.proceed();
+            if (result instanceof ResponseEntity<?> response && response.getBody() instanceof StreamingResponseBody body) {
+                result = holdWhileStreaming(response, body, permit);
+                handedOver = true;
+            }
+            return result;
+        } finally {
+            if (!handedOver) permit.release();
+        }
+    }
+
+    private static ResponseEntity<StreamingResponseBody> holdWhileStreaming(ResponseEntity<?> response,
+                                                                            StreamingResponseBody body,
+                                                                            Permit permit) {
+        // Startet der Body nie (Timeout vor dem Start, Abbruch), gibt der Abschluss der Async-Verarbeitung frei
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            WebAsyncUtils.getAsyncManager(attributes.getRequest()).registerCallableInterceptor(permit, new CallableProcessingInterceptor() {
+                @Override
+                public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+                    permit.release();
+                }
+            });
+        }
+
+        StreamingResponseBody held = out -> {
+            try {
+                body.writeTo(out);
+            } finally {
+                permit.release();
+            }
+        };
+        return ResponseEntity.status(response.getStatusCode()).headers(response.getHeaders()).body(held);
+    }
+
+    // Genau einmal freigeben, egal ob über den Body, den Async-Abschluss oder den Aufrufer
+    private static final class Permit {
+
+        private final Limiter limiter;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Permit(Limiter limiter) {
+            this.limiter = limiter;
+        }
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                limiter.release();
+            }
+        }
+    }
+
+    private final class Limiter {
+
+        private final String name;
+        private final int maxConcurrent;
+        private final Semaphore permits;
+        private final int maxQueue;
+        private final long targetNanos;
+        private final long maxQueueMillis;
+        private final long intervalNanos;
+        private final AtomicInteger active;
+        private final AtomicInteger waiting;
+        private final Timer queueTime;
+
+        // Zeitpunkt, ab dem eine durchgehend zu lange Wartezeit als Überlast gilt (0 = Wartezeit im Ziel)
+        private volatile long aboveTargetUntil;
+        private volatile boolean overloaded;
+
+        Limiter(String name, int maxConcurrent, int maxQueue, long targetQueueMillis, long maxQueueMillis, long intervalMillis) {
+            this.name = name;
+            this.maxConcurrent = maxConcurrent;
+            this.permits = new Semaphore(maxConcurrent);
+            this.maxQueue = maxQueue;
+            this.targetNanos = TimeUnit.MILLISECONDS.toNanos(targetQueueMillis);
+            this.maxQueueMillis = maxQueueMillis;
+            this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+            this.active = registry.gauge("minishop.bulkhead.active", Tags.of("class", name), new AtomicInteger());
+            this.waiting = registry.gauge("minishop.bulkhead.waiting", Tags.of("class", name), new AtomicInteger());
+            this.queueTime = registry.timer("minishop.bulkhead.queue", "class", name);
+        }
+
+        void acquire() throws InterruptedException {
+            if (permits.tryAcquire()) {
+                withinTarget();
+                active.incrementAndGet();
+                return;
+            }
+
+            if (overloaded) {
+                throw reject("overloaded", "Überlast: Wartezeit dauerhaft über " + TimeUnit.NANOSECONDS.toMillis(targetNanos) + " ms");
+            }
+            if (waiting.incrementAndGet() > maxQueue) {
+                waiting.decrementAndGet();
+                throw reject("queue-full", "Zu viele wartende Requests");
+            }
+
+            long start = System.nanoTime();
+            boolean acquired;
+            try {
+                acquired = permits.tryAcquire(maxQueueMillis, TimeUnit.MILLISECONDS);
+            } finally {
+                waiting.decrementAndGet();
+            }
+
+            long delay = System.nanoTime() - start;
+            queueTime.record(delay, TimeUnit.NANOSECONDS);
+            if (delay < targetNanos) {
+                withinTarget();
+            } else {
+                aboveTarget();
+            }
+
+            if (!acquired) {
+                throw reject("timeout", "Kein freier Platz nach " + maxQueueMillis + " ms");
+            }
+            active.incrementAndGet();
+        }
+
+        void release() {
+            active.decrementAndGet();
+            permits.release();
+        }
+
+        private void withinTarget() {
+            if (aboveTargetUntil != 0 || overloaded) {
+                aboveTargetUntil = 0;
+                overloaded = false;
+            }
+        }
+
+        private void aboveTarget() {
+            long now = System.nanoTime();
+            long until = aboveTargetUntil;
+            if (until == 0) {
+                aboveTargetUntil = now + intervalNanos;
+            } else if (now - until >= 0) {
+                overloaded = true;
+            }
+        }
+
+        private OverloadedException reject(String reason, String detail) {
+            registry.counter("minishop.bulkhead.rejected", "class", name, "reason", reason).increment();
+            // Retry-After: ungefähr so lange, wie ein Request höchstens in der Warteschlange stehen darf
+            long retryAfter = Math.max(1, TimeUnit.MILLISECONDS.toSeconds(maxQueueMillis));
+            return new OverloadedException(name, retryAfter, detail + " (" + name + ")");
+        }
+    }
+}
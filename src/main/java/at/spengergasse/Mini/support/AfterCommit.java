@@ -0,0 +1,30 @@
+package at.spengergasse.Mini.support;
+
+// After-Commit Hooks
+// ---------------------------------
+// In-Memory-Strukturen (Indizes, Caches, Versionszähler) dürfen erst nachziehen,
+// wenn die Datenbank-Transaktion wirklich committed ist.
+// Bei Rollback wird die Aktion verworfen.
+// Ohne aktive Transaktion wird die Aktion sofort ausgeführt.
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public final class AfterCommit {
+
+    private AfterCommit() {}
+
+    public static void run(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
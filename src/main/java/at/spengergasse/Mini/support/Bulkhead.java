@@ -0,0 +1,15 @@
+package at.spengergasse.Mini.support;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Ordnet einen Controller-Endpunkt einer Endpunkt-Klasse zu; nur so viele Aufrufe der Klasse
+// laufen gleichzeitig, wie ihr Bulkhead erlaubt. Ausführung siehe AdmissionControl.
+
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Bulkhead {
+    EndpointClass value();
+}
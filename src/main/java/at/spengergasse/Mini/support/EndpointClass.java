@@ -0,0 +1,32 @@
+package at.spengergasse.Mini.support;
+
+// Endpunkt-Klassen mit eigenem Bulkhead (siehe AdmissionControl)
+// Defaults gelten, solange in application.properties nichts anderes steht:
+//   minishop.bulkhead.<name>.max-concurrent / .max-queue / .target-queue-ms / .max-queue-ms
+
+public enum EndpointClass {
+
+    // Günstige Lesezugriffe (Projektionen, Caches): viele gleichzeitig, kurze Wartezeit
+    READ("read", 100, 200, 50, 1000),
+
+    // Einzelne Schreibzugriffe (ein Produkt, ein Shop)
+    WRITE("write", 40, 100, 100, 2000),
+
+    // Teure Operationen (deleteShop, Bulk-Import, Export): wenige gleichzeitig,
+    // damit sie Hikari- und Tomcat-Pool nicht für alle anderen belegen
+    EXPENSIVE("expensive", 4, 8, 500, 5000);
+
+    final String propertyName;
+    final int maxConcurrent;
+    final int maxQueue;
+    final long targetQueueMillis;
+    final long maxQueueMillis;
+
+    EndpointClass(String propertyName, int maxConcurrent, int maxQueue, long targetQueueMillis, long maxQueueMillis) {
+        this.propertyName = propertyName;
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueue = maxQueue;
+        this.targetQueueMillis = targetQueueMillis;
+        this.maxQueueMillis = maxQueueMillis;
+    }
+}
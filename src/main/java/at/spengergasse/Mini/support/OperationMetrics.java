@@ -0,0 +1,87 @@
+package at.spengergasse.Mini.support;
+
+// Metriken je Operation (Micrometer)
+// ---------------------------------
+// Misst jeden Aufruf von ShopService, ProductService, Guard und den Spring-Data-Repositories:
+//   minishop.operation          Timer (Histogramm + p50/p95/p99)  Tags: component, method, outcome
+//   minishop.operation.errors   Counter je Exception-Typ          Tags: component, method, exception
+//   minishop.operation.active   Gauge: gerade laufende Aufrufe    Tags: component, method
+//
+// So lässt sich eine Latenzspitze der Validierung (Guard), dem Lookup (Repository)
+// oder dem Flush/Commit (Service-Timer enthält die Transaktion) zuordnen.
+//
+// Hikari-Pool (hikaricp.*) und Hibernate-Statistiken (hibernate.*) liefert die
+// Actuator-Autokonfiguration; Scrape-Endpunkt: GET /actuator/prometheus
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+@Aspect
+@Component
+@RequiredArgsConstructor
+// Äußerster Advice: der Timer umfasst auch Commit und Flush der @Transactional-Methoden
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class OperationMetrics {
+
+    private final MeterRegistry registry;
+    private final ConcurrentMap<String, AtomicInteger> active = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+
+    @Around("within(at.spengergasse.Mini.service.ShopService) || within(at.spengergasse.Mini.service.ProductService)"
+            + " || within(at.spengergasse.Mini.validation.Guard)")
+    public Object measureComponent(ProceedingJoinPoint joinPoint) throws Throwable {
+        return measure(joinPoint.getSignature().getDeclaringType().getSimpleName(), joinPoint);
+    }
+
+    // Geerbte Methoden (save, findById, ...) sind in CrudRepository deklariert,
+    // der Name kommt daher vom Repository-Interface des Spring-Data-Proxys
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+    public Object measureRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return measure(repositoryName(joinPoint.getTarget().getClass()), joinPoint);
+    }
+
+    private Object measure(String component, ProceedingJoinPoint joinPoint) throws Throwable {
+        String method = joinPoint.getSignature().getName();
+        AtomicInteger inFlight = active.computeIfAbsent(component + "." + method, key -> registry.gauge(
+                "minishop.operation.active", Tags.of("component", component, "method", method), new AtomicInteger()));
+
+        Timer.Sample sample = Timer.start(registry);
+        inFlight.incrementAndGet();
+        String outcome = "success";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            outcome = "error";
+            registry.counter("minishop.operation.errors",
+                    "component", component, "method", method, "exception", e.getClass().getSimpleName()).increment();
+            throw e;
+        } finally {
+            inFlight.decrementAndGet();
+            sample.stop(registry.timer("minishop.operation",
+                    "component", component, "method", method, "outcome", outcome));
+        }
+    }
+
+    private String repositoryName(Class<?> proxyClass) {
+        return repositoryNames.computeIfAbsent(proxyClass, type -> Stream.of(type.getInterfaces())
+                .filter(Repository.class::isAssignableFrom)
+                .filter(i -> i != Repository.class)
+                .findFirst()
+                .map(Class::getSimpleName)
+                .orElse(type.getSimpleName()));
+    }
+}
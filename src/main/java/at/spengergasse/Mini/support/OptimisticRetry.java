@@ -0,0 +1,78 @@
+package at.spengergasse.Mini.support;
+
+// Optimistic Locking mit begrenzter Wiederholung
+// ---------------------------------
+// Shop und Product haben eine @Version-Spalte (BaseEntity). Schreiben zwei Transaktionen
+// dieselbe Zeile, scheitert die zweite beim Flush mit OptimisticLockingFailureException,
+// statt die erste still zu überschreiben ("last write wins").
+//
+// Dieser Advice liegt AUSSERHALB der Transaktion (Order vor dem Transaction-Advisor):
+//   Konflikt -> Transaktion ist zurückgerollt -> kurz warten -> Methode neu ausführen
+// Wartezeit: "Full Jitter" (zufällig zwischen 0 und backoff * 2^(Versuch-1)),
+// damit sich konkurrierende Schreiber nicht im Gleichtakt erneut treffen.
+//
+// Nach max-attempts Versuchen geht der Konflikt als 409 an den Client.
+// Läuft bereits eine äußere Transaktion, wird nicht wiederholt (das muss außen passieren).
+//
+// Metrik: minishop.optimistic.conflicts{method, outcome=retried|exhausted}
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1) // innerhalb von OperationMetrics, außerhalb von @Transactional
+public class OptimisticRetry {
+    private static final Logger LOGGER = LoggerFactory.getLogger(OptimisticRetry.class);
+
+    private final MeterRegistry registry;
+
+    @Value("${minishop.retry.max-attempts:4}")
+    private int maxAttempts;
+
+    @Value("${minishop.retry.backoff-ms:10}")
+    private long backoffMillis;
+
+    public OptimisticRetry(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("@annotation(at.spengergasse.Mini.support.RetryOnConflict)")
+    public Object retry(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+
+        String method = joinPoint.getSignature().getDeclaringType().getSimpleName() + "." + joinPoint.getSignature().getName();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return joinPoint.proceed();
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    registry.counter("minishop.optimistic.conflicts", "method", method, "outcome", "exhausted").increment();
+                    LOGGER.warn("Optimistic locking conflict in {} not resolved after {} attempts", method, attempt);
+                    throw e;
+                }
+
+                registry.counter("minishop.optimistic.conflicts", "method", method, "outcome", "retried").increment();
+                long maxDelay = backoffMillis << (attempt - 1);
+                long delay = ThreadLocalRandom.current().nextLong(maxDelay + 1);
+                LOGGER.debug("Optimistic locking conflict in {} (attempt {}), retrying in {} ms", method, attempt, delay);
+                TimeUnit.MILLISECONDS.sleep(delay);
+            }
+        }
+    }
+}
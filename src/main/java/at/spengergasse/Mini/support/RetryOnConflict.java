@@ -0,0 +1,15 @@
+package at.spengergasse.Mini.support;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Markiert @Transactional-Methoden, die bei einem Optimistic-Locking-Konflikt
+// komplett neu ausgeführt werden dürfen (neue Transaktion, frisch gelesene Daten).
+// Ausführung siehe OptimisticRetry.
+
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnConflict {
+}
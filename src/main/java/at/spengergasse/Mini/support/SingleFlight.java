@@ -0,0 +1,99 @@
+package at.spengergasse.Mini.support;
+
+// Single-Flight (Request Coalescing)
+// ---------------------------------
+// Geht eine beliebte Shop-Seite live, laden hunderte gleichzeitige Requests denselben Shop.
+// Mit Single-Flight führt nur der erste Aufrufer je Schlüssel (Leader) den Loader aus,
+// alle, die währenddessen mit demselben Schlüssel kommen (Follower), warten auf sein Ergebnis
+// bzw. bekommen dieselbe Exception. Ist der Loader fertig, ist der Schlüssel wieder frei:
+// es wird nichts gecacht, nur gleichzeitige Arbeit zusammengelegt.
+//
+// - Das Ergebnis wird zwischen Threads geteilt und darf daher nicht verändert werden
+// - Der Schlüssel sollte die Katalog-Version enthalten: wer nach einem Commit kommt,
+//   hängt sich nicht an einen Load, der vor dem Commit gestartet ist
+// - Nicht innerhalb einer Transaktion aufrufen: Follower würden beim Warten eine Connection halten
+//
+// Metriken: minishop.singleflight.calls{name, role=leader|follower},
+//           minishop.singleflight.ratio{name} = Anteil der Follower an allen Aufrufen
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+@Component
+public class SingleFlight {
+
+    private record FlightKey(String name, Object key) {}
+
+    private record Stats(LongAdder leaders, LongAdder followers) {
+        double ratio() {
+            long followerCount = followers.sum();
+            long total = leaders.sum() + followerCount;
+            return total == 0 ? 0 : (double) followerCount / total;
+        }
+    }
+
+    private final MeterRegistry registry;
+    private final ConcurrentMap<FlightKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Stats> stats = new ConcurrentHashMap<>();
+
+    public SingleFlight(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String name, Object key, Supplier<T> loader) {
+        FlightKey flightKey = new FlightKey(name, key);
+        CompletableFuture<Object> own = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(flightKey, own);
+
+        if (running != null) {
+            stats(name).followers().increment();
+            try {
+                return (T) running.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) throw cause;
+                if (e.getCause() instanceof Error cause) throw cause;
+                throw e;
+            }
+        }
+
+        stats(name).leaders().increment();
+        try {
+            T result = loader.get();
+            own.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, own);
+        }
+    }
+
+    private Stats stats(String name) {
+        return stats.computeIfAbsent(name, this::register);
+    }
+
+    private Stats register(String name) {
+        Stats created = new Stats(new LongAdder(), new LongAdder());
+        FunctionCounter.builder("minishop.singleflight.calls", created.leaders(), LongAdder::sum)
+                .tags("name", name, "role", "leader")
+                .register(registry);
+        FunctionCounter.builder("minishop.singleflight.calls", created.followers(), LongAdder::sum)
+                .tags("name", name, "role", "follower")
+                .register(registry);
+        Gauge.builder("minishop.singleflight.ratio", created, Stats::ratio)
+                .tags("name", name)
+                .register(registry);
+        return created;
+    }
+}
@@ -1,6 +1,6 @@
 package at.spengergasse.Mini.validation;
 
-import at.spengergasse.Mini.exceptions.ServiceException;
+import at.spengergasse.Mini.exceptions.ConflictException;
 import at.spengergasse.Mini.persistence.ProductRepository;
 import at.spengergasse.Mini.viewmodel.ProductRequest;
 import at.spengergasse.Mini.viewmodel.ShopRequest;
@@ -19,21 +19,31 @@ import org.springframework.stereotype.Component;
 public class Guard {
 
     private final ProductRepository productRepository;
+    private final NameIndex nameIndex;
 
     public void validateProduct(ProductRequest request, Long productId) {
-        if (request == null) throw new IllegalArgumentException("ProductRequest darf nicht null sein!");
-        if (request.name() == null || request.name().isBlank()) throw new IllegalArgumentException("Produktname darf nicht leer sein!");
-        if (request.price() == null || request.price() < 0) throw new IllegalArgumentException("Preis darf nicht negativ oder null sein!");
-        if (request.price() > 500000) throw new IllegalArgumentException("Preis darf 500.000 (Cent) nicht überschreiten!");
+        validateProductFields(request);
+
+        // Name sicher frei -> keine Datenbankabfrage nötig
+        if (!nameIndex.mightContainProduct(request.name())) return;
 
         // Nur prüfen, ob anderer Datensatz denselben Namen hat
         productRepository.findByName(request.name()).ifPresent(existing -> {
             if (!existing.getId().equals(productId)) {
-                throw new ServiceException("Produktname '" + request.name() + "' existiert bereits!");
+                throw new ConflictException("Produktname '" + request.name() + "' existiert bereits!");
             }
         });
     }
 
+    // Feldprüfung ohne Datenbankzugriff (Bulk-Import prüft Namen mengenbasiert)
+    public void validateProductFields(ProductRequest request) {
+        if (request == null) throw new IllegalArgumentException("ProductRequest darf nicht null sein!");
+        if (request.name() == null || request.name().isBlank()) throw new IllegalArgumentException("Produktname darf nicht leer sein!");
+        if (request.name().length() > 50) throw new IllegalArgumentException("Produktname darf maximal 50 Zeichen lang sein!");
+        if (request.price() == null || request.price() < 0) throw new IllegalArgumentException("Preis darf nicht negativ oder null sein!");
+        if (request.price() > 500000) throw new IllegalArgumentException("Preis darf 500.000 (Cent) nicht überschreiten!");
+    }
+
     public void validateShop(ShopRequest request) {
         if (request == null) throw new IllegalArgumentException("ShopRequest darf nicht null sein!");
         if (request.shopName() == null || request.shopName().isBlank()) throw new IllegalArgumentException("Shopname darf nicht leer sein!");
@@ -0,0 +1,91 @@
+package at.spengergasse.Mini.validation;
+
+// In-Memory Name Index
+// ---------------------------------
+// Hält alle vergebenen Produkt- und Shopnamen in Concurrent Sets.
+// Häufigster Fall "Name ist noch frei" wird ohne Datenbankabfrage beantwortet.
+//
+// Regeln für die Konsistenz:
+//   - Hinzufügen sofort (auch vor dem Commit) -> im Zweifel "könnte existieren" -> DB-Abfrage
+//   - Entfernen erst nach dem Commit          -> ein Rollback kann keinen Namen "freigeben"
+//   - Vor dem Warm-up (und wenn deaktiviert) gilt jeder Name als "könnte existieren"
+//
+// Der Unique-Constraint in der Datenbank bleibt die letzte Instanz bei Races
+// (z.B. mehrere Instanzen der Anwendung).
+
+import at.spengergasse.Mini.persistence.ProductRepository;
+import at.spengergasse.Mini.persistence.ShopRepository;
+import at.spengergasse.Mini.support.AfterCommit;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+@RequiredArgsConstructor
+public class NameIndex {
+    private static final Logger LOGGER = LoggerFactory.getLogger(NameIndex.class);
+
+    private final ProductRepository productRepository;
+    private final ShopRepository shopRepository;
+
+    private final Set<String> productNames = ConcurrentHashMap.newKeySet();
+    private final Set<String> shopNames = ConcurrentHashMap.newKeySet();
+
+    @Value("${minishop.name-index.enabled:true}")
+    private boolean enabled;
+
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            LOGGER.info("Name index disabled, uniqueness checks always query the database");
+            return;
+        }
+
+        productNames.addAll(productRepository.findAllNames());
+        shopNames.addAll(shopRepository.findAllShopNames());
+        ready = true;
+
+        LOGGER.info("Name index warmed up ({} product names, {} shop names)", productNames.size(), shopNames.size());
+    }
+
+    // false -> Name ist sicher frei, true -> in der Datenbank nachsehen
+    public boolean mightContainProduct(String name) {
+        return !ready || productNames.contains(name);
+    }
+
+    public boolean mightContainShop(String shopName) {
+        return !ready || shopNames.contains(shopName);
+    }
+
+    public void productAdded(String name) {
+        productNames.add(name);
+    }
+
+    public void productRemoved(String name) {
+        AfterCommit.run(() -> productNames.remove(name));
+    }
+
+    public void productRenamed(String oldName, String newName) {
+        if (Objects.equals(oldName, newName)) return;
+        productAdded(newName);
+        productRemoved(oldName);
+    }
+
+    public void shopAdded(String shopName) {
+        shopNames.add(shopName);
+    }
+
+    public void shopRemoved(String shopName) {
+        AfterCommit.run(() -> shopNames.remove(shopName));
+    }
+}
@@ -0,0 +1,16 @@
+package at.spengergasse.Mini.viewmodel;
+
+import java.util.List;
+
+// DTO
+// Ergebnis eines Bulk-Imports: Anzahl importierter Produkte und Fehler je Eintrag
+
+// index bezieht sich auf die Position im Request-Array
+
+public record BulkImportResponse(
+        int received,
+        int imported,
+        List<Error> errors
+) {
+    public record Error(int index, String name, String message) {}
+}
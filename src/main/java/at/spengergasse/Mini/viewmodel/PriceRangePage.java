@@ -0,0 +1,14 @@
+package at.spengergasse.Mini.viewmodel;
+
+import java.util.List;
+
+// DTO
+// Produkte eines Shops in einem Preisbereich (Cent, Grenzen inklusive), sortiert nach Preis
+
+// total = Anzahl aller Treffer im Bereich, items = Ausschnitt ab offset
+
+public record PriceRangePage(
+        int total,
+        int offset,
+        List<ProductView> items
+) {}
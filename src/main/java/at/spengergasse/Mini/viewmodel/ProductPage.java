@@ -0,0 +1,13 @@
+package at.spengergasse.Mini.viewmodel;
+
+import java.util.List;
+
+// DTO
+// Eine Seite der Produktliste eines Shops
+
+// nextCursor ist null, wenn es keine weitere Seite gibt
+
+public record ProductPage(
+        List<ProductView> items,
+        String nextCursor
+) {}
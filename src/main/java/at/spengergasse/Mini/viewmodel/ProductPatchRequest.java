@@ -0,0 +1,21 @@
+package at.spengergasse.Mini.viewmodel;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Size;
+
+// DTO
+// Teil-Update (PATCH): nur gesetzte Felder werden geändert, null = unverändert
+
+public record ProductPatchRequest(
+        @Size(max = 50, message = "Produktname darf maximal 50 Zeichen haben")
+        String name,
+
+        @Min(value = 0, message = "Preis darf nicht negativ sein")
+        @Max(value = 500_000, message = "Preis zu hoch")
+        Long price // Cent
+) {
+    public boolean isEmpty() {
+        return name == null && price == null;
+    }
+}
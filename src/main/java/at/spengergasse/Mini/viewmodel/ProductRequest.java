@@ -16,7 +16,8 @@ public record ProductRequest(
         @Size(max = 50, message = "Produktname darf maximal 50 Zeichen haben")
         String name,
 
+        // Preis in Cent; Long statt long, damit ein fehlender Preis als null erkannt wird (statt still 0)
         @Min(value = 0, message = "Preis darf nicht negativ sein")
         @Max(value = 500_000, message = "Preis zu hoch")
-        Double price
+        Long price
 ) {}
\ No newline at end of file
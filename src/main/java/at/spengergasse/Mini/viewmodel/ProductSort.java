@@ -0,0 +1,19 @@
+package at.spengergasse.Mini.viewmodel;
+
+import java.util.Locale;
+
+// Sortierschlüssel für die Keyset-Pagination der Produkte eines Shops
+// (GET /api/shop/{shopId}/products?sort=id|name|price)
+
+public enum ProductSort {
+    ID, NAME, PRICE;
+
+    public static ProductSort of(String value) {
+        if (value == null || value.isBlank()) return ID;
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unbekannte Sortierung '" + value + "' (erlaubt: id, name, price)!");
+        }
+    }
+}
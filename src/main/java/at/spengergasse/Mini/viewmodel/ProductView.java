@@ -0,0 +1,26 @@
+package at.spengergasse.Mini.viewmodel;
+
+import at.spengergasse.Mini.model.Product;
+
+import java.util.UUID;
+
+// DTO (Read-Model)
+// Wird in den Lese-Queries direkt per Konstruktor-Projektion erzeugt:
+//   select new ...ProductView(p.id, p.businessId, p.name, p.price, p.shop.id) from Product p
+// Keine Entity, kein Persistence Context, kein Dirty Checking, kein Association-Graph für Jackson
+
+// shopId kommt aus dem FK, der Shop wird dafür nicht geladen
+
+public record ProductView(
+        Long id,
+        UUID businessId,
+        String name,
+        long price, // Cent
+        Long shopId
+) {
+    // Für Antworten der Schreib-Endpunkte (Entity liegt dort bereits vor)
+    public static ProductView from(Product product) {
+        return new ProductView(product.getId(), product.getBusinessId(), product.getName(), product.getPrice(),
+                product.getShopId());
+    }
+}
@@ -0,0 +1,19 @@
+package at.spengergasse.Mini.viewmodel;
+
+// DTO
+// Katalog-Statistik eines Shops (GET /api/shop/{id}/stats), Preise in Cent
+
+// minPrice, maxPrice, avgPrice sind null, solange der Shop keine Produkte hat
+// changes = Anzahl Schreibzugriffe (hinzugefügt, entfernt, geändert) je Zeitraum, UTC
+
+public record ShopStatsView(
+        Long shopId,
+        long productCount,
+        Long minPrice,
+        Long maxPrice,
+        Long avgPrice,
+        long sumPrice,
+        Changes changes
+) {
+    public record Changes(long thisHour, long previousHour, long today, long yesterday) {}
+}
@@ -0,0 +1,30 @@
+package at.spengergasse.Mini.viewmodel;
+
+import at.spengergasse.Mini.model.Shop;
+
+import java.util.List;
+import java.util.UUID;
+
+// DTO (Read-Model)
+// Shop-Kopf per Konstruktor-Projektion, Produkte als ProductView aus einer zweiten Projektion
+
+public record ShopView(
+        Long id,
+        UUID businessId,
+        String shopName,
+        List<ProductView> products
+) {
+    // Konstruktor-Projektion in ShopRepository.findViewById (ohne Produkte)
+    public ShopView(Long id, UUID businessId, String shopName) {
+        this(id, businessId, shopName, List.of());
+    }
+
+    public ShopView withProducts(List<ProductView> products) {
+        return new ShopView(id, businessId, shopName, products);
+    }
+
+    // Für Antworten der Schreib-Endpunkte (Entity liegt dort bereits vor)
+    public static ShopView from(Shop shop) {
+        return new ShopView(shop.getId(), shop.getBusinessId(), shop.getShopName());
+    }
+}
@@ -0,0 +1,36 @@
+package at.spengergasse.Mini.viewmodel;
+
+// DTO
+// Status eines asynchron angenommenen Schreibzugriffs (202 Accepted, GET /api/shop/writes/{trackingId})
+
+// QUEUED     = angenommen, noch nicht geschrieben
+// APPLIED    = geschrieben (productId gesetzt)
+// SUPERSEDED = durch ein späteres Update desselben Produkts im selben Batch ersetzt (supersededBy)
+// FAILED     = verworfen (error)
+
+public record WriteStatusView(
+        String trackingId,
+        String operation,
+        Status status,
+        Long productId,
+        String supersededBy,
+        String error
+) {
+    public enum Status { QUEUED, APPLIED, SUPERSEDED, FAILED }
+
+    public static WriteStatusView queued(String trackingId, String operation, Long productId) {
+        return new WriteStatusView(trackingId, operation, Status.QUEUED, productId, null, null);
+    }
+
+    public WriteStatusView applied(Long productId) {
+        return new WriteStatusView(trackingId, operation, Status.APPLIED, productId, null, null);
+    }
+
+    public WriteStatusView supersededBy(String trackingId) {
+        return new WriteStatusView(this.trackingId, operation, Status.SUPERSEDED, productId, trackingId, null);
+    }
+
+    public WriteStatusView failed(String error) {
+        return new WriteStatusView(trackingId, operation, Status.FAILED, productId, null, error);
+    }
+}
@@ -0,0 +1,161 @@
+package at.spengergasse.Mini.benchmark;
+
+import at.spengergasse.Mini.model.Product;
+import at.spengergasse.Mini.model.Shop;
+import at.spengergasse.Mini.persistence.ProductRepository;
+import jakarta.persistence.EntityGraph;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Zeilen und Allokation je Produkt-Lookup: die Repository-Aufrufe, die die Services heute machen
+// (Product.shop LAZY), gegen dieselben Lookups mit dem früheren EAGER @ManyToOne.
+// EAGER lässt sich nicht zur Laufzeit umschalten, der alte Pfad wird deshalb nachgestellt, wie Hibernate ihn ausführte:
+//   - find(id): Shop per Outer Join in derselben Query (Ad-hoc-Entity-Graph auf "shop")
+//   - JPQL-Queries: Produkte laden, danach je noch nicht geladenem Shop ein eigenes SELECT
+// Second-Level-Cache ist aus, damit jede Zeile wirklich aus der Datenbank kommt.
+//
+// ./gradlew benchmark --tests '*ProductFetchBenchmark' -Dbench.iterations=5000
+
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false",
+        "logging.level.root=WARN"
+})
+class ProductFetchBenchmark {
+
+    private static final int ITERATIONS = Integer.getInteger("bench.iterations", 2000);
+    private static final int PRODUCTS = 200;
+
+    private record Result(String operation, String mode, double statements, double entities, double bytes) {}
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void compareLazyAndEagerShopLoading() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        List<Long> ids = tx.execute(status -> seed());
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        // Operation -> {heute (LAZY, Repository wie in den Services), früher (EAGER nachgestellt)}
+        Map<String, List<IntConsumer>> operations = new LinkedHashMap<>();
+        operations.put("findById", List.of(
+                i -> productRepository.findById(ids.get(i % ids.size())),
+                i -> {
+                    EntityGraph<Product> eager = entityManager.createEntityGraph(Product.class);
+                    eager.addAttributeNodes("shop");
+                    entityManager.find(Product.class, ids.get(i % ids.size()), Map.of("jakarta.persistence.loadgraph", eager));
+                }));
+        operations.put("findByName", List.of(
+                i -> productRepository.findByName("Fetch-" + (i % PRODUCTS)),
+                i -> productRepository.findByName("Fetch-" + (i % PRODUCTS)).ifPresent(this::initializeShop)));
+        operations.put("findAllById(50)", List.of(
+                i -> productRepository.findAllById(window(ids, i)),
+                i -> productRepository.findAllById(window(ids, i)).forEach(this::initializeShop)));
+
+        List<Result> results = new ArrayList<>();
+        operations.forEach((operation, calls) -> {
+            results.add(measure(tx, statistics, operation, "lazy", calls.get(0)));
+            results.add(measure(tx, statistics, operation, "eager", calls.get(1)));
+        });
+
+        System.out.printf("%n%d iterations, %d products in %d shops, second-level cache off%n", ITERATIONS, PRODUCTS, PRODUCTS / 10);
+        System.out.printf("%-16s %-8s %12s %12s %14s%n", "operation", "mode", "stmts/op", "rows/op", "bytes/op");
+        for (Result result : results) {
+            System.out.printf("%-16s %-8s %12.2f %12.2f %14.0f%n",
+                    result.operation(), result.mode(), result.statements(), result.entities(), result.bytes());
+        }
+
+        // Einzel-Lookup: LAZY liest nur die Produktzeile, EAGER die Shopzeile dazu
+        assertThat(results.get(0).entities()).isLessThan(results.get(1).entities());
+        // Queries: EAGER braucht zusätzliche SELECTs für die Shops
+        assertThat(results.get(4).statements()).isLessThan(results.get(5).statements());
+    }
+
+    private Result measure(TransactionTemplate tx, Statistics statistics, String operation, String mode, IntConsumer call) {
+        // Aufwärmen (JIT, Query-Plan-Cache)
+        runAll(tx, call, Math.min(ITERATIONS, 500));
+
+        statistics.clear();
+        long bytesBefore = allocatedBytes();
+        runAll(tx, call, ITERATIONS);
+        long bytes = allocatedBytes() - bytesBefore;
+
+        return new Result(operation, mode,
+                (double) statistics.getPrepareStatementCount() / ITERATIONS,
+                (double) statistics.getEntityLoadCount() / ITERATIONS,
+                (double) bytes / ITERATIONS);
+    }
+
+    // Jeder Aufruf in eigener Read-only-Transaktion mit frischem Persistence Context, wie ein Request
+    private void runAll(TransactionTemplate tx, IntConsumer call, int iterations) {
+        tx.setReadOnly(true);
+        for (int i = 0; i < iterations; i++) {
+            int index = i;
+            tx.executeWithoutResult(status -> {
+                call.accept(index);
+                entityManager.clear();
+            });
+        }
+    }
+
+    private void initializeShop(Product product) {
+        Hibernate.initialize(product.getShop());
+    }
+
+    // 50 aufeinanderfolgende ids (5 Shops), je Durchlauf verschoben
+    private static List<Long> window(List<Long> ids, int i) {
+        int from = (i * 50) % (ids.size() - 50);
+        return ids.subList(from, from + 50);
+    }
+
+    private List<Long> seed() {
+        List<Long> ids = new ArrayList<>(PRODUCTS);
+        Shop shop = null;
+        for (int i = 0; i < PRODUCTS; i++) {
+            if (i % 10 == 0) {
+                shop = new Shop("FetchShop-" + i);
+                entityManager.persist(shop);
+            }
+            Product product = Product.forShopReference("Fetch-" + i, 100 + i, shop);
+            entityManager.persist(product);
+            ids.add(product.getId());
+        }
+        return ids;
+    }
+
+    // Allokierte Bytes des aktuellen Threads (HotSpot)
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+}
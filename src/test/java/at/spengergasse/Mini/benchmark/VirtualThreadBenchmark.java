@@ -0,0 +1,145 @@
+package at.spengergasse.Mini.benchmark;
+
+import at.spengergasse.Mini.MiniShopApplication;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Vergleich Plattform-Threads (Tomcat-Pool, 200 Threads) vs. Virtual Threads
+// unter blockierender Last: kurzer DB-Zugriff über Hikari + langsamer Downstream-Aufruf.
+//
+// ./gradlew benchmark --tests '*VirtualThreadBenchmark' -Dbench.requests=4000 -Dbench.concurrency=1000
+
+@Tag("benchmark")
+class VirtualThreadBenchmark {
+
+    private static final int REQUESTS = Integer.getInteger("bench.requests", 2000);
+    private static final int CONCURRENCY = Integer.getInteger("bench.concurrency", 1000);
+    private static final long BLOCKING_MILLIS = Long.getLong("bench.blockingMillis", 100);
+
+    private record Result(String mode, double seconds, long[] latenciesMicros, int errors) {
+        double throughput() {
+            return latenciesMicros.length / seconds;
+        }
+
+        long percentile(double p) {
+            int index = (int) Math.ceil(p * latenciesMicros.length) - 1;
+            return latenciesMicros[Math.max(0, index)] / 1000;
+        }
+    }
+
+    @Test
+    void comparePlatformAndVirtualThreads() throws Exception {
+        Result platform = run(false);
+        Result virtual = run(true);
+
+        System.out.printf("%n%d requests, %d concurrent clients, %d ms blocking per request%n",
+                REQUESTS, CONCURRENCY, BLOCKING_MILLIS);
+        System.out.printf("%-10s %10s %10s %10s %10s %10s %8s%n", "mode", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms", "errors");
+        for (Result result : List.of(platform, virtual)) {
+            System.out.printf("%-10s %10.1f %10d %10d %10d %10d %8d%n",
+                    result.mode(), result.throughput(),
+                    result.percentile(0.50), result.percentile(0.95), result.percentile(0.99),
+                    result.percentile(1.0), result.errors());
+        }
+
+        assertThat(platform.errors()).isZero();
+        assertThat(virtual.errors()).isZero();
+    }
+
+    private Result run(boolean virtualThreads) throws Exception {
+        SpringApplicationBuilder application = new SpringApplicationBuilder(MiniShopApplication.class, BlockingWorkload.class)
+                .properties(
+                        "server.port=0",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN");
+        if (virtualThreads) {
+            // Virtual Threads samt Hikari-Pool, siehe application-virtual-threads.properties
+            application.profiles("virtual-threads");
+        }
+
+        try (ConfigurableApplicationContext context = application.run()) {
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            URI uri = URI.create("http://localhost:" + port + "/bench/blocking");
+
+            try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+                 HttpClient http = HttpClient.newBuilder().executor(clients).build()) {
+
+                // Aufwärmen (JIT, Hikari-Pool, Tomcat-Threads)
+                send(http, uri, clients, Math.min(REQUESTS, 200), Math.min(CONCURRENCY, 50));
+
+                long start = System.nanoTime();
+                List<Long> latencies = send(http, uri, clients, REQUESTS, CONCURRENCY);
+                double seconds = (System.nanoTime() - start) / 1e9;
+
+                long[] sorted = latencies.stream().filter(l -> l >= 0).mapToLong(Long::longValue).sorted().toArray();
+                int errors = latencies.size() - sorted.length;
+                return new Result(virtualThreads ? "virtual" : "platform", seconds, sorted, errors);
+            }
+        }
+    }
+
+    // Liefert Latenzen in Mikrosekunden, -1 für fehlgeschlagene Requests
+    private static List<Long> send(HttpClient http, URI uri, ExecutorService clients, int requests, int concurrency) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+        Semaphore inFlight = new Semaphore(concurrency);
+        List<Future<Long>> futures = new ArrayList<>(requests);
+
+        for (int i = 0; i < requests; i++) {
+            inFlight.acquire();
+            futures.add(clients.submit(() -> {
+                long start = System.nanoTime();
+                try {
+                    HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+                    return response.statusCode() == 200 ? (System.nanoTime() - start) / 1000 : -1L;
+                } catch (Exception e) {
+                    return -1L;
+                } finally {
+                    inFlight.release();
+                }
+            }));
+        }
+
+        List<Long> latencies = new ArrayList<>(requests);
+        for (Future<Long> future : futures) {
+            latencies.add(future.get());
+        }
+        return latencies;
+    }
+
+    @RestController
+    static class BlockingWorkload {
+
+        private final JdbcTemplate jdbcTemplate;
+
+        BlockingWorkload(JdbcTemplate jdbcTemplate) {
+            this.jdbcTemplate = jdbcTemplate;
+        }
+
+        @GetMapping("/bench/blocking")
+        String blocking() throws InterruptedException {
+            jdbcTemplate.queryForObject("select count(*) from shop", Long.class); // kurz eine Hikari-Connection
+            Thread.sleep(BLOCKING_MILLIS); // langsamer Downstream-Aufruf, blockiert den Request-Thread
+            return "ok";
+        }
+    }
+}
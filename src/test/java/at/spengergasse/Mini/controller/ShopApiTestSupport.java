@@ -0,0 +1,78 @@
+package at.spengergasse.Mini.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Gemeinsame Basis der MockMvc-Tests gegen die Shop-API
+// ---------------------------------
+// Alle Unterklassen teilen sich einen Spring-Kontext (gleiche Konfiguration) und damit eine Datenbank:
+// Namen werden deshalb mit unique() eindeutig gemacht. Dazu die wiederkehrenden Schritte
+// Shop anlegen, Produkte anlegen/importieren und JSON-Antworten lesen.
+@SpringBootTest
+@AutoConfigureMockMvc
+abstract class ShopApiTestSupport {
+
+    @Autowired
+    protected MockMvc mockMvc;
+
+    @Autowired
+    protected ObjectMapper objectMapper;
+
+    protected static String unique(String prefix) {
+        return prefix + "-" + System.nanoTime();
+    }
+
+    protected static String product(String name, long price) {
+        return "{\"name\":\"" + name + "\",\"price\":" + price + "}";
+    }
+
+    protected long createShop(String prefix) throws Exception {
+        return read(mockMvc.perform(post("/api/shop")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"shopName\":\"" + unique(prefix) + "\"}"))
+                .andExpect(status().isOk())).get("id").asLong();
+    }
+
+    protected long addProduct(long shopId, String name, long price) throws Exception {
+        return read(mockMvc.perform(post("/api/shop/" + shopId + "/products")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(product(name, price)))
+                .andExpect(status().isOk())).get("id").asLong();
+    }
+
+    protected ResultActions importProducts(long shopId, List<String> products) throws Exception {
+        return mockMvc.perform(post("/api/shop/" + shopId + "/products/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + String.join(",", products) + "]"))
+                .andExpect(status().isOk());
+    }
+
+    // count Produkte "<prefix>-<i>" mit Preis i
+    protected ResultActions importProducts(long shopId, String prefix, int count) throws Exception {
+        List<String> products = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            products.add(product(prefix + "-" + i, i));
+        }
+        return importProducts(shopId, products);
+    }
+
+    protected JsonNode read(ResultActions result) throws Exception {
+        return read(result.andReturn().getResponse().getContentAsString());
+    }
+
+    protected JsonNode read(String json) throws Exception {
+        return objectMapper.readTree(json);
+    }
+}
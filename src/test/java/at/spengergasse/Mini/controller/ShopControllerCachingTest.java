@@ -0,0 +1,31 @@
+package at.spengergasse.Mini.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class ShopControllerCachingTest extends ShopApiTestSupport {
+
+    @Test
+    void conditionalGetReturnsNotModifiedUntilCatalogChanges() throws Exception {
+        long shopId = createShop("EtagShop");
+
+        String etag = mockMvc.perform(get("/api/shop/" + shopId))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // Unveränderter Katalog -> 304
+        mockMvc.perform(get("/api/shop/" + shopId).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        addProduct(shopId, "EtagProduct", 100);
+
+        // Katalog geändert -> neue Version, 200 mit aktuellem Inhalt
+        mockMvc.perform(get("/api/shop/" + shopId + "/products").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].name").value("EtagProduct"));
+    }
+}
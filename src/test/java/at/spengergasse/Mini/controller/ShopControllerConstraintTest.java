@@ -0,0 +1,58 @@
+package at.spengergasse.Mini.controller;
+
+import at.spengergasse.Mini.model.Product;
+import at.spengergasse.Mini.model.Shop;
+import at.spengergasse.Mini.persistence.ProductRepository;
+import at.spengergasse.Mini.persistence.ShopRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Zeilen direkt über das Repository anlegen: NameIndex kennt die Namen nicht, der Guard lässt sie durch,
+// erst die Unique-Constraint schlägt an -> 409 statt 500
+class ShopControllerConstraintTest extends ShopApiTestSupport {
+
+    @Autowired
+    private ShopRepository shopRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void duplicateProductNameBehindTheIndexIsConflict() throws Exception {
+        String name = unique("Hidden");
+        Shop shop = shopRepository.save(new Shop(unique("HiddenShop")));
+        productRepository.save(new Product(name, 100, null));
+
+        mockMvc.perform(post("/api/shop/" + shop.getId() + "/products")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"" + name + "\",\"price\":200}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.detail").value("Der Name existiert bereits!"));
+    }
+
+    @Test
+    void duplicateShopNameBehindTheIndexIsConflict() throws Exception {
+        String name = unique("HiddenShop");
+        shopRepository.save(new Shop(name));
+
+        mockMvc.perform(post("/api/shop")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"shopName\":\"" + name + "\"}"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void duplicateNameSeenByTheGuardIsAlsoConflict() throws Exception {
+        String shop = "{\"shopName\":\"" + unique("GuardShop") + "\"}";
+        mockMvc.perform(post("/api/shop").contentType(MediaType.APPLICATION_JSON).content(shop))
+                .andExpect(status().isOk());
+
+        // derselbe Konflikt, aber über NameIndex/Guard erkannt: gleicher Status wie über die Constraint
+        mockMvc.perform(post("/api/shop").contentType(MediaType.APPLICATION_JSON).content(shop))
+                .andExpect(status().isConflict());
+    }
+}
@@ -0,0 +1,61 @@
+package at.spengergasse.Mini.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class ShopControllerExportTest extends ShopApiTestSupport {
+
+    @Test
+    void exportWritesOneJsonLinePerProduct() throws Exception {
+        long shopId = createShop("ExportShop");
+        importProducts(shopId, List.of(
+                product("Export-" + shopId + "-a", 100),
+                product("Export-" + shopId + "-b", 200),
+                product("Export-" + shopId + "-c", 300)));
+
+        String body = export(shopId);
+
+        assertThat(body).endsWith("\n");
+        List<String> names = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            JsonNode product = read(line);
+            assertThat(product.get("shopId").asLong()).isEqualTo(shopId);
+            names.add(product.get("name").asText());
+        }
+        assertThat(names).containsExactlyInAnyOrder(
+                "Export-" + shopId + "-a", "Export-" + shopId + "-b", "Export-" + shopId + "-c");
+    }
+
+    @Test
+    void exportOfEmptyShopIsEmpty() throws Exception {
+        long shopId = createShop("EmptyExportShop");
+
+        assertThat(export(shopId)).isEmpty();
+    }
+
+    @Test
+    void exportOfUnknownShopIsNotFoundBeforeStreaming() throws Exception {
+        mockMvc.perform(get("/api/shop/999999/products/export"))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isNotFound());
+    }
+
+    private String export(long shopId) throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/shop/" + shopId + "/products/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+    }
+}
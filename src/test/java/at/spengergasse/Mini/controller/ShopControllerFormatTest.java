@@ -0,0 +1,129 @@
+package at.spengergasse.Mini.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayInputStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class ShopControllerFormatTest extends ShopApiTestSupport {
+
+    private static final MediaType SMILE = MediaType.parseMediaType(ResponseFormat.SMILE_VALUE);
+
+    private long shopId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        shopId = createShop("FormatShop");
+
+        // genug Produkte, damit die Liste über der Kompressionsschwelle (2KB) liegt
+        importProducts(shopId, "Format-" + shopId, 50);
+    }
+
+    @Test
+    void cachedGetIsEncodedAsRequestedInAccept() throws Exception {
+        byte[] cbor = mockMvc.perform(get("/api/shop/" + shopId).accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string(HttpHeaders.VARY, "Accept, Accept-Encoding"))
+                .andReturn().getResponse().getContentAsByteArray();
+        JsonNode shop = new CBORMapper().readTree(cbor);
+        assertThat(shop.get("id").asLong()).isEqualTo(shopId);
+        assertThat(shop.get("products").size()).isEqualTo(50);
+
+        // gleiche Version, anderes Format -> eigener Cache-Eintrag, kein CBOR für JSON-Clients
+        mockMvc.perform(get("/api/shop/" + shopId))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.products.length()").value(50));
+    }
+
+    @Test
+    void largeResponsesAreGzippedWhenAccepted() throws Exception {
+        byte[] gzipped = mockMvc.perform(get("/api/shop/" + shopId + "/products").header(HttpHeaders.ACCEPT_ENCODING, "gzip, br"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            assertThat(objectMapper.readTree(in).get("items").size()).isEqualTo(50);
+        }
+
+        mockMvc.perform(get("/api/shop/" + shopId + "/products").header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(jsonPath("$.items.length()").value(50));
+    }
+
+    @Test
+    void eachRepresentationHasItsOwnEtag() throws Exception {
+        String path = "/api/shop/" + shopId + "/products";
+        String json = mockMvc.perform(get(path))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String cbor = mockMvc.perform(get(path).accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String jsonGzip = mockMvc.perform(get(path).header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertThat(json).endsWith("-json\"");
+        assertThat(cbor).endsWith("-cbor\"");
+        assertThat(jsonGzip).endsWith("-json-gz\"");
+
+        // 304 nur für dieselbe Repräsentation
+        mockMvc.perform(get(path).accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, cbor))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, cbor));
+        mockMvc.perform(get(path).header(HttpHeaders.IF_NONE_MATCH, cbor))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+        mockMvc.perform(get(path).header(HttpHeaders.IF_NONE_MATCH, jsonGzip))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    void unsupportedAcceptIsNotAcceptable() throws Exception {
+        // Wildcards und fehlender Header -> JSON
+        mockMvc.perform(get("/api/shop/" + shopId + "/products").accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+
+        // nur nicht unterstützte Typen -> 406 statt stillschweigend JSON
+        mockMvc.perform(get("/api/shop/" + shopId).accept(MediaType.TEXT_HTML))
+                .andExpect(status().isNotAcceptable());
+        mockMvc.perform(get("/api/shop/" + shopId + "/products").header(HttpHeaders.ACCEPT, "application/xml, text/csv;q=0.5"))
+                .andExpect(status().isNotAcceptable());
+        mockMvc.perform(get("/api/shop/" + shopId + "/products").header(HttpHeaders.ACCEPT, "application/json;q=0"))
+                .andExpect(status().isNotAcceptable());
+        mockMvc.perform(get("/api/shop/" + shopId + "/products/export").accept(MediaType.TEXT_HTML))
+                .andExpect(status().isNotAcceptable());
+
+        // unterstützter Typ neben einem unbekannten
+        mockMvc.perform(get("/api/shop/" + shopId).header(HttpHeaders.ACCEPT, "text/html, application/cbor;q=0.8"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR));
+    }
+
+    @Test
+    void uncachedEndpointsUseTheBinaryConverters() throws Exception {
+        byte[] smile = mockMvc.perform(post("/api/shop/" + shopId + "/products")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(SMILE)
+                        .content(product("Format-" + shopId + "-smile", 100)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(SMILE))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertThat(new SmileMapper().readTree(smile).get("price").asLong()).isEqualTo(100);
+    }
+}
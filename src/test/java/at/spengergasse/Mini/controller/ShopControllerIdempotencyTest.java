@@ -0,0 +1,154 @@
+package at.spengergasse.Mini.controller;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class ShopControllerIdempotencyTest extends ShopApiTestSupport {
+
+    @Test
+    void retryWithSameKeyReplaysTheFirstResponse() throws Exception {
+        String key = unique("shop");
+        String body = "{\"shopName\":\"" + unique("IdemShop") + "\"}";
+
+        MockHttpServletResponse first = postShop(key, body);
+        MockHttpServletResponse retry = postShop(key, body);
+
+        assertThat(first.getStatus()).isEqualTo(200);
+        assertThat(first.getHeader(IdempotencyFilter.REPLAYED)).isNull();
+        assertThat(retry.getStatus()).isEqualTo(200);
+        assertThat(retry.getHeader(IdempotencyFilter.REPLAYED)).isEqualTo("true");
+        assertThat(retry.getContentAsString()).isEqualTo(first.getContentAsString());
+
+        // Gleicher Key, anderer Inhalt
+        mockMvc.perform(post("/api/shop")
+                        .header(IdempotencyFilter.HEADER, key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"shopName\":\"" + unique("Other") + "\"}"))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    void concurrentDuplicatesShareOneExecution() throws Exception {
+        long shopId = createShop("IdemProducts");
+
+        String key = unique("product");
+        String body = product(unique("Idem"), 100);
+        Callable<MockHttpServletResponse> send = () -> mockMvc.perform(post("/api/shop/" + shopId + "/products")
+                        .header(IdempotencyFilter.HEADER, key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andReturn().getResponse();
+
+        List<Future<MockHttpServletResponse>> futures = new ArrayList<>();
+        try (ExecutorService clients = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 8; i++) {
+                futures.add(clients.submit(send));
+            }
+        }
+
+        List<Long> ids = new ArrayList<>();
+        for (Future<MockHttpServletResponse> future : futures) {
+            MockHttpServletResponse response = future.get();
+            assertThat(response.getStatus()).isEqualTo(200);
+            ids.add(read(response.getContentAsString()).get("id").asLong());
+        }
+
+        // Alle bekommen dasselbe Produkt, angelegt wurde es nur einmal
+        assertThat(ids).containsOnly(ids.get(0));
+        mockMvc.perform(get("/api/shop/" + shopId + "/stats"))
+                .andExpect(jsonPath("$.productCount").value(1));
+    }
+
+    @Test
+    void duplicateOfSlowOriginalGetsConflictWithRetryAfter() throws Exception {
+        IdempotencyFilter filter = new IdempotencyFilter(objectMapper, new SimpleMeterRegistry(), 100, 10, 50, 1024);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        FilterChain slowChain = (request, response) -> {
+            started.countDown();
+            try {
+                finish.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        try (ExecutorService original = Executors.newSingleThreadExecutor()) {
+            original.submit(() -> {
+                filter.doFilter(idempotentPost("slow"), new MockHttpServletResponse(), slowChain);
+                return null;
+            });
+            started.await();
+
+            MockHttpServletResponse duplicate = new MockHttpServletResponse();
+            filter.doFilter(idempotentPost("slow"), duplicate, (request, response) -> {
+                throw new AssertionError("Duplikat darf nicht ausgeführt werden");
+            });
+            finish.countDown();
+
+            assertThat(duplicate.getStatus()).isEqualTo(409);
+            assertThat(duplicate.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        }
+    }
+
+    @Test
+    void oversizedBodiesAreRejectedWithoutBufferingThem() throws Exception {
+        IdempotencyFilter filter = new IdempotencyFilter(objectMapper, new SimpleMeterRegistry(), 100, 10, 50, 16);
+        FilterChain notExecuted = (request, response) -> {
+            throw new AssertionError("Zu großer Request darf nicht ausgeführt werden");
+        };
+
+        // Content-Length angegeben: 413 vor dem Lesen
+        MockHttpServletResponse declared = new MockHttpServletResponse();
+        filter.doFilter(idempotentPost("large"), declared, notExecuted);
+        assertThat(declared.getStatus()).isEqualTo(413);
+
+        // ohne Content-Length (chunked): höchstens Grenze + 1 Byte gelesen, dann 413
+        MockHttpServletRequest chunked = new MockHttpServletRequest("POST", "/api/shop") {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        chunked.addHeader(IdempotencyFilter.HEADER, "chunked");
+        chunked.setContent("{\"shopName\":\"Chunked\"}".getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse streamed = new MockHttpServletResponse();
+        filter.doFilter(chunked, streamed, notExecuted);
+        assertThat(streamed.getStatus()).isEqualTo(413);
+        assertThat(chunked.getInputStream().isFinished()).isFalse();
+    }
+
+    private static MockHttpServletRequest idempotentPost(String key) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/shop");
+        request.addHeader(IdempotencyFilter.HEADER, key);
+        request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        request.setContent("{\"shopName\":\"Slow\"}".getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private MockHttpServletResponse postShop(String key, String body) throws Exception {
+        return mockMvc.perform(post("/api/shop")
+                        .header(IdempotencyFilter.HEADER, key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andReturn().getResponse();
+    }
+}
@@ -0,0 +1,95 @@
+package at.spengergasse.Mini.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class ShopControllerPriceRangeTest extends ShopApiTestSupport {
+
+    private String suffix;
+    private long shopId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        suffix = "-" + System.nanoTime();
+        shopId = createShop("RangeShop");
+
+        // Preise 100, 200, 200, 300, 400
+        importProducts(shopId, List.of(product(named("A"), 100), product(named("B"), 200), product(named("C"), 200),
+                        product(named("D"), 300), product(named("E"), 400)))
+                .andExpect(jsonPath("$.imported").value(5));
+    }
+
+    @Test
+    void boundsAreInclusiveAndSortedByPrice() throws Exception {
+        mockMvc.perform(get("/api/shop/" + shopId + "/products/price-range?min=200&max=300"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(3))
+                .andExpect(jsonPath("$.offset").value(0))
+                .andExpect(jsonPath("$.items[*].price", contains(200, 200, 300)));
+
+        mockMvc.perform(get("/api/shop/" + shopId + "/products/price-range?min=101&max=199"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(0))
+                .andExpect(jsonPath("$.items.length()").value(0));
+    }
+
+    @Test
+    void offsetAndSizePageThroughTheRange() throws Exception {
+        mockMvc.perform(get("/api/shop/" + shopId + "/products/price-range?min=0&max=1000&offset=1&size=2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(5))
+                .andExpect(jsonPath("$.offset").value(1))
+                .andExpect(jsonPath("$.items[*].name", contains("B" + suffix, "C" + suffix)));
+
+        mockMvc.perform(get("/api/shop/" + shopId + "/products/price-range?min=0&max=1000&offset=5&size=2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(5))
+                .andExpect(jsonPath("$.items.length()").value(0));
+    }
+
+    @Test
+    void priceChangesAreVisibleInTheRange() throws Exception {
+        long productId = addProduct(shopId, named("F"), 250);
+
+        mockMvc.perform(get("/api/shop/" + shopId + "/products/price-range?min=250&max=250"))
+                .andExpect(jsonPath("$.items[*].name", contains("F" + suffix)));
+
+        mockMvc.perform(patch("/api/shop/" + shopId + "/products/" + productId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"price\":50}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/shop/" + shopId + "/products/price-range?min=0&max=100"))
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(jsonPath("$.items[*].name", contains("F" + suffix, "A" + suffix)));
+
+        mockMvc.perform(delete("/api/shop/" + shopId + "/products/" + productId))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/shop/" + shopId + "/products/price-range?min=0&max=100"))
+                .andExpect(jsonPath("$.total").value(1));
+    }
+
+    @Test
+    void invalidRangeIsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/shop/" + shopId + "/products/price-range?min=500&max=100"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void unknownShopIsNotFound() throws Exception {
+        mockMvc.perform(get("/api/shop/999999999/products/price-range?min=0&max=100"))
+                .andExpect(status().isNotFound());
+    }
+
+    private String named(String name) {
+        return name + suffix;
+    }
+}
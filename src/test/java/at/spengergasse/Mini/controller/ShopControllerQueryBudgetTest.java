@@ -0,0 +1,93 @@
+package at.spengergasse.Mini.controller;
+
+import at.spengergasse.Mini.support.QueryBudget;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Jeder Lesepfad muss mit einer festen Anzahl Statements auskommen, egal wie viele Produkte der Shop hat
+class ShopControllerQueryBudgetTest extends ShopApiTestSupport {
+
+    private static final int PRODUCTS = 30;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private QueryBudget budget;
+    private long shopId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        budget = QueryBudget.of(entityManagerFactory);
+
+        shopId = createShop("BudgetShop");
+        importProducts(shopId, "Budget-" + shopId, PRODUCTS)
+                .andExpect(jsonPath("$.imported").value(PRODUCTS));
+    }
+
+    @Test
+    void shopWithProductsIsLoadedWithTwoProjections() throws Exception {
+        budget.atMost(2, "GET /api/shop/{id}", () -> mockMvc.perform(get("/api/shop/" + shopId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products.length()").value(PRODUCTS)));
+    }
+
+    @Test
+    void productPagesNeedExistenceCheckAndOnePageQuery() throws Exception {
+        budget.atMost(2, "GET /api/shop/{id}/products", () -> mockMvc.perform(get("/api/shop/" + shopId + "/products?size=10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(10)));
+
+        budget.atMost(2, "GET /api/shop/{id}/products?sort=price", () -> mockMvc.perform(get("/api/shop/" + shopId + "/products?sort=price"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(PRODUCTS)));
+    }
+
+    @Test
+    void exportStreamsWithOneQuery() throws Exception {
+        budget.atMost(2, "GET /api/shop/{id}/products/export", () -> {
+            MvcResult started = mockMvc.perform(get("/api/shop/" + shopId + "/products/export"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            return mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk());
+        });
+    }
+
+    @Test
+    void statsAreReadFromTheCounterRow() throws Exception {
+        // Existenzprüfung, Statistik-Zeile per Primärschlüssel (keine Aggregation über die Produkte)
+        budget.atMost(2, "GET /api/shop/{id}/stats", () -> mockMvc.perform(get("/api/shop/" + shopId + "/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.productCount").value(PRODUCTS)));
+    }
+
+    @Test
+    void addingAProductDoesNotLoadTheCatalog() throws Exception {
+        // Shop-Lookup, Sequence, INSERT, UPDATE shop_stats
+        budget.atMost(4, "POST /api/shop/{id}/products", () -> mockMvc.perform(post("/api/shop/" + shopId + "/products")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(product("Budget-" + shopId + "-new", 100)))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void patchingThePriceUpdatesTheRowInPlace() throws Exception {
+        long productId = read(mockMvc.perform(get("/api/shop/" + shopId + "/products?size=1")))
+                .get("items").get(0).get("id").asLong();
+
+        // Shop-Check, Produkt, Namensprüfung, UPDATE (kein INSERT einer Kopie), UPDATE shop_stats
+        budget.atMost(5, "PATCH /api/shop/{id}/products/{productId}", () -> mockMvc.perform(patch("/api/shop/" + shopId + "/products/" + productId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"price\":4242}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(productId))
+                .andExpect(jsonPath("$.name").value("Budget-" + shopId + "-0"))
+                .andExpect(jsonPath("$.price").value(4242)));
+    }
+}
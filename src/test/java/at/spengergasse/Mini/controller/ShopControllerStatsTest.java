@@ -0,0 +1,95 @@
+package at.spengergasse.Mini.controller;
+
+import at.spengergasse.Mini.persistence.ShopStatsRepository;
+import at.spengergasse.Mini.service.CatalogStats;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class ShopControllerStatsTest extends ShopApiTestSupport {
+
+    @Autowired
+    private ShopStatsRepository statsRepository;
+
+    @Autowired
+    private CatalogStats catalogStats;
+
+    @Test
+    void statsFollowAddUpdateRemoveAndDelete() throws Exception {
+        String suffix = "-" + System.nanoTime();
+        long shopId = createShop("StatsShop");
+
+        // Leerer Shop: keine Preise
+        mockMvc.perform(get("/api/shop/" + shopId + "/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.productCount").value(0))
+                .andExpect(jsonPath("$.minPrice").doesNotExist())
+                .andExpect(jsonPath("$.avgPrice").doesNotExist());
+
+        long cheap = addProduct(shopId, "Cheap" + suffix, 100);
+        addProduct(shopId, "Middle" + suffix, 300);
+        long expensive = addProduct(shopId, "Expensive" + suffix, 500);
+
+        mockMvc.perform(get("/api/shop/" + shopId + "/stats"))
+                .andExpect(jsonPath("$.productCount").value(3))
+                .andExpect(jsonPath("$.sumPrice").value(900))
+                .andExpect(jsonPath("$.minPrice").value(100))
+                .andExpect(jsonPath("$.maxPrice").value(500))
+                .andExpect(jsonPath("$.avgPrice").value(300));
+
+        // Das teuerste Produkt wird billiger -> max wird neu bestimmt
+        mockMvc.perform(put("/api/shop/" + shopId + "/products/" + expensive)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Expensive" + suffix + "\",\"price\":200}"))
+                .andExpect(status().isOk());
+
+        // Das billigste Produkt wird entfernt -> min wird neu bestimmt
+        mockMvc.perform(delete("/api/shop/" + shopId + "/products/" + cheap))
+                .andExpect(status().isOk());
+
+        JsonNode stats = read(mockMvc.perform(get("/api/shop/" + shopId + "/stats"))
+                .andExpect(jsonPath("$.productCount").value(2))
+                .andExpect(jsonPath("$.sumPrice").value(500))
+                .andExpect(jsonPath("$.minPrice").value(200))
+                .andExpect(jsonPath("$.maxPrice").value(300))
+                .andExpect(jsonPath("$.avgPrice").value(250)));
+
+        // 3x hinzugefügt, 1x geändert, 1x entfernt (robust gegen einen Stundenwechsel während des Tests)
+        JsonNode changes = stats.get("changes");
+        assertThat(changes.get("thisHour").asLong() + changes.get("previousHour").asLong()).isEqualTo(5);
+
+        mockMvc.perform(delete("/api/shop/" + shopId)).andExpect(status().isOk());
+        mockMvc.perform(get("/api/shop/" + shopId + "/stats")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void missingStatsRowsAreBackfilledOnStartup() throws Exception {
+        String suffix = "-" + System.nanoTime();
+        long shopId = createShop("LegacyShop");
+        addProduct(shopId, "Legacy-A" + suffix, 100);
+        addProduct(shopId, "Legacy-B" + suffix, 300);
+
+        // Shop wie von vor der Einführung: keine Statistik-Zeile
+        statsRepository.deleteById(shopId);
+        catalogStats.backfillMissing();
+
+        mockMvc.perform(get("/api/shop/" + shopId + "/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.productCount").value(2))
+                .andExpect(jsonPath("$.minPrice").value(100))
+                .andExpect(jsonPath("$.maxPrice").value(300))
+                .andExpect(jsonPath("$.changes.today").value(0));
+        assertThat(statsRepository.existsById(shopId)).isTrue();
+
+        // Weitere Schreibzugriffe schreiben die nachgelegte Zeile fort
+        addProduct(shopId, "Legacy-C" + suffix, 50);
+        mockMvc.perform(get("/api/shop/" + shopId + "/stats"))
+                .andExpect(jsonPath("$.productCount").value(3))
+                .andExpect(jsonPath("$.minPrice").value(50));
+    }
+}
@@ -0,0 +1,90 @@
+package at.spengergasse.Mini.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Großes max-delay: Writes, die kurz hintereinander ankommen, landen sicher im selben Batch
+// Eigene Properties -> als einzige Klasse ein eigener Spring-Kontext
+@TestPropertySource(properties = {
+        "minishop.write-behind.enabled=true",
+        "minishop.write-behind.max-delay-ms=500"
+})
+class ShopControllerWriteBehindTest extends ShopApiTestSupport {
+
+    private static final String PREFER = "Prefer";
+
+    @Test
+    void queuedWritesAreAppliedAndUpdatesCoalesced() throws Exception {
+        String suffix = "-" + System.nanoTime();
+        long shopId = createShop("AsyncShop");
+
+        // Anlegen: 202 + Tracking-ID, Status zuerst QUEUED
+        String added = read(mockMvc.perform(post("/api/shop/" + shopId + "/products")
+                        .header(PREFER, "respond-async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(product("Async" + suffix, 100)))
+                .andExpect(status().isAccepted())
+                .andExpect(header().exists(HttpHeaders.LOCATION))
+                .andExpect(jsonPath("$.status").value("QUEUED"))).get("trackingId").asText();
+
+        long productId = awaitFinished(added).get("productId").asLong();
+
+        // Zwei Updates desselben Produkts im selben Batch: nur das letzte wird geschrieben
+        String first = submitUpdate(shopId, productId, "Async" + suffix, 200);
+        String second = submitUpdate(shopId, productId, "Async" + suffix, 300);
+
+        assertThat(awaitFinished(second).get("status").asText()).isEqualTo("APPLIED");
+        JsonNode superseded = awaitFinished(first);
+        assertThat(superseded.get("status").asText()).isEqualTo("SUPERSEDED");
+        assertThat(superseded.get("supersededBy").asText()).isEqualTo(second);
+
+        mockMvc.perform(get("/api/shop/" + shopId + "/stats"))
+                .andExpect(jsonPath("$.productCount").value(1))
+                .andExpect(jsonPath("$.sumPrice").value(300));
+    }
+
+    @Test
+    void invalidWritesAreRejectedBeforeQueueing() throws Exception {
+        mockMvc.perform(post("/api/shop/products")
+                        .header(PREFER, "respond-async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"\",\"price\":100}"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(post("/api/shop/999999/products")
+                        .header(PREFER, "respond-async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"NoShop\",\"price\":100}"))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(get("/api/shop/writes/unknown"))
+                .andExpect(status().isNotFound());
+    }
+
+    private String submitUpdate(long shopId, long productId, String name, long price) throws Exception {
+        // weitere Präferenzen neben respond-async (RFC 7240)
+        return read(mockMvc.perform(put("/api/shop/" + shopId + "/products/" + productId)
+                        .header(PREFER, "respond-async, wait=10")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(product(name, price)))
+                .andExpect(status().isAccepted())).get("trackingId").asText();
+    }
+
+    private JsonNode awaitFinished(String trackingId) throws Exception {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (true) {
+            JsonNode status = read(mockMvc.perform(get("/api/shop/writes/" + trackingId)).andExpect(status().isOk()));
+            if (!"QUEUED".equals(status.get("status").asText()) || System.currentTimeMillis() > deadline) {
+                return status;
+            }
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package at.spengergasse.Mini.exceptions;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GlobalExceptionHandlerTest {
+
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+
+    @Test
+    void exhaustedPoolIsServiceUnavailableWithRetryAfter() {
+        // so meldet Hikari ein abgelaufenes connection-timeout, verpackt beim Transaktionsstart
+        SQLTransientConnectionException timeout = new SQLTransientConnectionException(
+                "HikariPool-1 - Connection is not available, request timed out after 5000ms.");
+        ResponseEntity<ProblemDetail> response = handler.onConnectionUnavailable(
+                new CannotCreateTransactionException("Could not open JPA EntityManager for transaction",
+                        new RuntimeException(timeout)));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+
+        assertThat(handler.onConnectionUnavailable(new CannotGetJdbcConnectionException("Failed to obtain JDBC Connection", timeout))
+                .getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @Test
+    void otherConnectionFailuresStayInternalServerError() {
+        ResponseEntity<ProblemDetail> response = handler.onConnectionUnavailable(
+                new CannotGetJdbcConnectionException("Failed to obtain JDBC Connection", new SQLException("Connection refused", "08001")));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+        assertThat(response.getHeaders().containsKey(HttpHeaders.RETRY_AFTER)).isFalse();
+    }
+}
@@ -0,0 +1,312 @@
+package at.spengergasse.Mini.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Lasttest-Harness
+// ---------------------------------
+// Startet die App gegen H2, legt Testdaten an und feuert Requests mit fester Rate (open loop)
+// gegen alle ShopController-Endpunkte. Latenz wird ab dem geplanten Startzeitpunkt gemessen,
+// damit Rückstau nicht "wegdefiniert" wird (Coordinated Omission).
+//
+// Ergebnis: Durchsatz und p50/p95/p99/max je Route als JSON in build/loadTest/results-<mix>.json
+//
+// ./gradlew loadTest -Dload.mix=read-heavy|write-heavy|mixed -Dload.rate=500 -Dload.duration=60
+//                    -Dload.clients=256 -Dload.shops=20 -Dload.productsPerShop=500
+
+@Tag("loadtest")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ShopApiLoadTest {
+
+    private static final String MIX = System.getProperty("load.mix", "mixed");
+    private static final int RATE = Integer.getInteger("load.rate", 200);
+    private static final int DURATION_SECONDS = Integer.getInteger("load.duration", 30);
+    private static final int CLIENTS = Integer.getInteger("load.clients", 256);
+    private static final int SHOPS = Integer.getInteger("load.shops", 20);
+    private static final int PRODUCTS_PER_SHOP = Integer.getInteger("load.productsPerShop", 500);
+    private static final String OUTPUT_DIR = System.getProperty("load.output.dir", "build/loadTest");
+
+    enum Route {
+        GET_SHOP("GET /api/shop/{id}"),
+        GET_PRODUCTS("GET /api/shop/{shopId}/products"),
+        EXPORT_PRODUCTS("GET /api/shop/{shopId}/products/export"),
+        CREATE_SHOP("POST /api/shop"),
+        DELETE_SHOP("DELETE /api/shop/{id}"),
+        ADD_PRODUCT("POST /api/shop/{shopId}/products"),
+        UPDATE_PRODUCT("PUT /api/shop/{shopId}/products/{productId}"),
+        REMOVE_PRODUCT("DELETE /api/shop/{shopId}/products/{productId}"),
+        CREATE_PRODUCT("POST /api/shop/products"),
+        DELETE_PRODUCT("DELETE /api/shop/products/{productId}");
+
+        final String label;
+
+        Route(String label) {
+            this.label = label;
+        }
+    }
+
+    private static Map<Route, Integer> weights(String mix) {
+        return switch (mix) {
+            case "read-heavy" -> Map.of(
+                    Route.GET_SHOP, 40, Route.GET_PRODUCTS, 50, Route.EXPORT_PRODUCTS, 1,
+                    Route.ADD_PRODUCT, 4, Route.UPDATE_PRODUCT, 3, Route.CREATE_PRODUCT, 1, Route.DELETE_PRODUCT, 1);
+            case "write-heavy" -> Map.of(
+                    Route.GET_SHOP, 10, Route.GET_PRODUCTS, 10, Route.CREATE_SHOP, 4, Route.DELETE_SHOP, 2,
+                    Route.ADD_PRODUCT, 30, Route.UPDATE_PRODUCT, 25, Route.REMOVE_PRODUCT, 8,
+                    Route.CREATE_PRODUCT, 6, Route.DELETE_PRODUCT, 5);
+            case "mixed" -> Map.of(
+                    Route.GET_SHOP, 25, Route.GET_PRODUCTS, 30, Route.EXPORT_PRODUCTS, 1, Route.CREATE_SHOP, 2,
+                    Route.DELETE_SHOP, 1, Route.ADD_PRODUCT, 15, Route.UPDATE_PRODUCT, 15, Route.REMOVE_PRODUCT, 4,
+                    Route.CREATE_PRODUCT, 4, Route.DELETE_PRODUCT, 3);
+            default -> throw new IllegalArgumentException("Unbekannter Mix '" + mix + "' (read-heavy, write-heavy, mixed)");
+        };
+    }
+
+    private static final class Recorder {
+        final ConcurrentLinkedQueue<Long> latenciesMicros = new ConcurrentLinkedQueue<>();
+        final AtomicInteger errors = new AtomicInteger();
+        final AtomicInteger dropped = new AtomicInteger();
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private HttpClient http;
+
+    private final List<Long> seededShops = new ArrayList<>();
+    private final ConcurrentLinkedDeque<long[]> assignedProducts = new ConcurrentLinkedDeque<>(); // {shopId, productId}
+    private final ConcurrentLinkedQueue<Long> unassignedProducts = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Long> createdShops = new ConcurrentLinkedQueue<>();
+    private final AtomicLong names = new AtomicLong();
+    private final Map<Route, Recorder> recorders = new EnumMap<>(Route.class);
+
+    @Test
+    void runLoad() throws Exception {
+        for (Route route : Route.values()) recorders.put(route, new Recorder());
+        List<Route> wheel = weightedWheel(weights(MIX));
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            http = HttpClient.newBuilder().executor(executor).connectTimeout(Duration.ofSeconds(5)).build();
+            seed();
+
+            Semaphore clients = new Semaphore(CLIENTS);
+            long intervalNanos = 1_000_000_000L / RATE;
+            long total = (long) RATE * DURATION_SECONDS;
+            long start = System.nanoTime();
+
+            for (long i = 0; i < total; i++) {
+                long intended = start + i * intervalNanos;
+                LockSupport.parkNanos(intended - System.nanoTime());
+
+                Route route = wheel.get(ThreadLocalRandom.current().nextInt(wheel.size()));
+                if (!clients.tryAcquire()) {
+                    recorders.get(route).dropped.incrementAndGet(); // alle Clients belegt
+                    continue;
+                }
+                executor.submit(() -> {
+                    try {
+                        execute(route, intended);
+                    } finally {
+                        clients.release();
+                    }
+                });
+            }
+        }
+
+        Map<String, Object> report = report();
+        File output = new File(OUTPUT_DIR, "results-" + MIX + ".json");
+        output.getParentFile().mkdirs();
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(output, report);
+        System.out.println(objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(report));
+
+        long completed = recorders.values().stream().mapToLong(r -> r.latenciesMicros.size()).sum();
+        assertThat(completed).isPositive();
+    }
+
+    // ----- Testdaten -----
+
+    private void seed() throws Exception {
+        for (int s = 0; s < SHOPS; s++) {
+            JsonNode shop = json(send("POST", "/api/shop", "{\"shopName\":\"LoadShop-" + s + "\"}"));
+            long shopId = shop.get("id").asLong();
+            seededShops.add(shopId);
+
+            StringBuilder bulk = new StringBuilder("[");
+            for (int p = 0; p < PRODUCTS_PER_SHOP; p++) {
+                if (p > 0) bulk.append(',');
+                bulk.append(productJson());
+            }
+            send("POST", "/api/shop/" + shopId + "/products/bulk", bulk.append(']').toString());
+
+            String cursor = null;
+            do {
+                String path = "/api/shop/" + shopId + "/products?size=500" + (cursor == null ? "" : "&cursor=" + cursor);
+                JsonNode page = json(send("GET", path, null));
+                page.get("items").forEach(item -> assignedProducts.add(new long[]{shopId, item.get("id").asLong()}));
+                cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+            } while (cursor != null);
+        }
+    }
+
+    // ----- Lastgenerierung -----
+
+    // Tatsächlich gesendete Route: ohne passenden Datensatz wird statt DELETE/PUT ein GET_SHOP geschickt
+    private record Sent(Route route, int status) {}
+
+    private void execute(Route route, long intendedStart) {
+        Route recorded = route;
+        boolean error;
+        try {
+            Sent sent = call(route);
+            recorded = sent.route();
+            error = sent.status() >= 400;
+        } catch (Exception e) {
+            error = true;
+        }
+        Recorder recorder = recorders.get(recorded);
+        if (error) recorder.errors.incrementAndGet();
+        recorder.latenciesMicros.add((System.nanoTime() - intendedStart) / 1000);
+    }
+
+    private Sent call(Route route) throws Exception {
+        long shopId = seededShops.get(ThreadLocalRandom.current().nextInt(seededShops.size()));
+        return switch (route) {
+            case GET_SHOP -> new Sent(route, send("GET", "/api/shop/" + shopId, null).statusCode());
+            case GET_PRODUCTS -> new Sent(route, send("GET", "/api/shop/" + shopId + "/products", null).statusCode());
+            case EXPORT_PRODUCTS -> new Sent(route, send("GET", "/api/shop/" + shopId + "/products/export", null).statusCode());
+            case CREATE_SHOP -> {
+                HttpResponse<String> response = send("POST", "/api/shop", "{\"shopName\":\"LoadShop-x" + names.incrementAndGet() + "\"}");
+                if (response.statusCode() == 200) createdShops.add(json(response).get("id").asLong());
+                yield new Sent(route, response.statusCode());
+            }
+            case DELETE_SHOP -> {
+                Long id = createdShops.poll();
+                if (id == null) yield fallback(shopId);
+                yield new Sent(route, send("DELETE", "/api/shop/" + id, null).statusCode());
+            }
+            case ADD_PRODUCT -> {
+                HttpResponse<String> response = send("POST", "/api/shop/" + shopId + "/products", productJson());
+                if (response.statusCode() == 200) assignedProducts.add(new long[]{shopId, json(response).get("id").asLong()});
+                yield new Sent(route, response.statusCode());
+            }
+            case UPDATE_PRODUCT -> {
+                long[] product = assignedProducts.pollFirst();
+                if (product == null) yield fallback(shopId);
+                HttpResponse<String> response = send("PUT", "/api/shop/" + product[0] + "/products/" + product[1], productJson());
+                if (response.statusCode() == 200) {
+                    assignedProducts.addLast(new long[]{product[0], json(response).get("id").asLong()});
+                }
+                yield new Sent(route, response.statusCode());
+            }
+            case REMOVE_PRODUCT -> {
+                long[] product = assignedProducts.pollFirst();
+                if (product == null) yield fallback(shopId);
+                int status = send("DELETE", "/api/shop/" + product[0] + "/products/" + product[1], null).statusCode();
+                if (status < 400) unassignedProducts.add(product[1]);
+                yield new Sent(route, status);
+            }
+            case CREATE_PRODUCT -> {
+                HttpResponse<String> response = send("POST", "/api/shop/products", productJson());
+                if (response.statusCode() == 200) unassignedProducts.add(json(response).get("id").asLong());
+                yield new Sent(route, response.statusCode());
+            }
+            case DELETE_PRODUCT -> {
+                Long id = unassignedProducts.poll();
+                if (id == null) yield fallback(shopId);
+                yield new Sent(route, send("DELETE", "/api/shop/products/" + id, null).statusCode());
+            }
+        };
+    }
+
+    private Sent fallback(long shopId) throws Exception {
+        return new Sent(Route.GET_SHOP, send("GET", "/api/shop/" + shopId, null).statusCode());
+    }
+
+    private String productJson() {
+        return "{\"name\":\"LoadProduct-" + names.incrementAndGet() + "\",\"price\":"
+                + ThreadLocalRandom.current().nextInt(0, 500_000) + "}";
+    }
+
+    private HttpResponse<String> send(String method, String path, String body) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofSeconds(30));
+        if (body == null) {
+            request.method(method, HttpRequest.BodyPublishers.noBody());
+        } else {
+            request.header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofString(body));
+        }
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private JsonNode json(HttpResponse<String> response) throws Exception {
+        return objectMapper.readTree(response.body());
+    }
+
+    private static List<Route> weightedWheel(Map<Route, Integer> weights) {
+        List<Route> wheel = new ArrayList<>();
+        weights.forEach((route, weight) -> {
+            for (int i = 0; i < weight; i++) wheel.add(route);
+        });
+        return wheel;
+    }
+
+    // ----- Auswertung -----
+
+    private Map<String, Object> report() {
+        Map<String, Object> routes = new LinkedHashMap<>();
+        recorders.forEach((route, recorder) -> {
+            long[] sorted = recorder.latenciesMicros.stream().mapToLong(Long::longValue).sorted().toArray();
+            if (sorted.length == 0 && recorder.dropped.get() == 0) return;
+
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("requests", sorted.length);
+            stats.put("errors", recorder.errors.get());
+            stats.put("dropped", recorder.dropped.get());
+            stats.put("throughputPerSecond", (double) sorted.length / DURATION_SECONDS);
+            stats.put("p50Millis", percentile(sorted, 0.50));
+            stats.put("p95Millis", percentile(sorted, 0.95));
+            stats.put("p99Millis", percentile(sorted, 0.99));
+            stats.put("maxMillis", percentile(sorted, 1.0));
+            routes.put(route.label, stats);
+        });
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("mix", MIX);
+        report.put("targetRatePerSecond", RATE);
+        report.put("durationSeconds", DURATION_SECONDS);
+        report.put("clients", CLIENTS);
+        report.put("shops", SHOPS);
+        report.put("productsPerShop", PRODUCTS_PER_SHOP);
+        report.put("routes", routes);
+        return report;
+    }
+
+    private static double percentile(long[] sortedMicros, double p) {
+        if (sortedMicros.length == 0) return 0;
+        int index = Math.max(0, (int) Math.ceil(p * sortedMicros.length) - 1);
+        return sortedMicros[index] / 1000.0;
+    }
+}
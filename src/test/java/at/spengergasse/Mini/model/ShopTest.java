@@ -0,0 +1,70 @@
+package at.spengergasse.Mini.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShopTest {
+
+    @Test
+    @DisplayName("Produkt doppelt hinzufügen ergibt nur einen Eintrag")
+    void testAddProductTwice() {
+        Shop shop = new Shop("Shop");
+        Product product = new Product("Elixir", 20);
+
+        shop.addProduct(product);
+        shop.addProduct(product);
+
+        assertThat(shop.getProducts()).containsExactly(product);
+        assertThat(product.getShop()).isSameAs(shop);
+    }
+
+    @Test
+    @DisplayName("Produkt in anderen Shop verschieben hält beide Seiten synchron")
+    void testMoveProductBetweenShops() {
+        Shop first = new Shop("First");
+        Shop second = new Shop("Second");
+        Product product = new Product("Sword", 50, first);
+
+        product.setShop(second);
+
+        assertThat(first.getProducts()).isEmpty();
+        assertThat(second.getProducts()).containsExactly(product);
+    }
+
+    @Test
+    @DisplayName("Hinzufügen prüft die Mitgliedschaft ohne Scan der Produktliste")
+    void testAddProductDoesNotScanProducts() {
+        Shop shop = new Shop("BigShop");
+        AtomicInteger scans = new AtomicInteger();
+        // Mit List.contains je add wäre das Hinzufügen von n Produkten O(n²)
+        ReflectionTestUtils.setField(shop, "products", new ArrayList<Product>() {
+            @Override
+            public boolean contains(Object o) {
+                scans.incrementAndGet();
+                return super.contains(o);
+            }
+
+            @Override
+            public int indexOf(Object o) {
+                scans.incrementAndGet();
+                return super.indexOf(o);
+            }
+        });
+
+        Product first = new Product("Product-0", 1);
+        shop.addProduct(first);
+        for (int i = 1; i < 1_000; i++) {
+            shop.addProduct(new Product("Product-" + i, 1));
+        }
+        shop.addProduct(first);
+
+        assertThat(scans).hasValue(0);
+        assertThat(shop.getProducts()).hasSize(1_000);
+    }
+}
@@ -2,12 +2,15 @@ package at.spengergasse.Mini.persistence;
 
 import at.spengergasse.Mini.model.Product;
 import at.spengergasse.Mini.model.Shop;
+import at.spengergasse.Mini.viewmodel.ProductView;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -26,6 +29,23 @@ class RepositoryIntegrationTests {
     @DisplayName("Shop Repository Tests")
     class ShopTests {
 
+        @Test
+        @DisplayName("Shop mengenbasiert löschen, Produkte bleiben ohne Shop erhalten")
+        void testDetachAllAndDeleteShop() {
+            Shop shop = shopRepository.save(new Shop("BulkDeleteShop"));
+            List<Product> products = productRepository.saveAll(List.of(
+                    new Product("Hammer", 10, shop),
+                    new Product("Nails", 1, shop)));
+
+            assertThat(productRepository.detachAllFromShop(shop.getId())).isEqualTo(2);
+            assertThat(shopRepository.deleteShopById(shop.getId())).isEqualTo(1);
+
+            assertThat(shopRepository.findById(shop.getId())).isNotPresent();
+            assertThat(productRepository.findAllById(products.stream().map(Product::getId).toList()))
+                    .hasSize(2)
+                    .allSatisfy(product -> assertThat(product.getShopId()).isNull());
+        }
+
         @Test
         @DisplayName("Shop speichern und abrufen")
         void testSaveAndFindShop() {
@@ -58,8 +78,8 @@ class RepositoryIntegrationTests {
         @DisplayName("1:n Beziehung Shop → Products prüfen")
         void testShopProductsRelationship() {
             Shop shop = new Shop("WeaponShop");
-            Product p1 = new Product("Axe", 50.0);
-            Product p2 = new Product("Hammer", 75.0);
+            Product p1 = new Product("Axe", 50);
+            Product p2 = new Product("Hammer", 75);
 
             shop.addProduct(p1);
             shop.addProduct(p2);
@@ -86,7 +106,7 @@ class RepositoryIntegrationTests {
         @DisplayName("Orphan Removal prüfen")
         void testOrphanRemoval() {
             Shop shop = new Shop("OrphanShop");
-            Product p = new Product("Potion", 10.0);
+            Product p = new Product("Potion", 10);
             shop.addProduct(p);
             shopRepository.saveAndFlush(shop);
 
@@ -100,7 +120,7 @@ class RepositoryIntegrationTests {
         @DisplayName("Doppelte Produkte verhindern")
         void testPreventDuplicateProducts() {
             Shop shop = new Shop("DuplicateShop");
-            Product p = new Product("Elixir", 20.0);
+            Product p = new Product("Elixir", 20);
             shop.addProduct(p);
             shop.addProduct(p); // nochmal hinzufügen
             shopRepository.saveAndFlush(shop);
@@ -113,8 +133,8 @@ class RepositoryIntegrationTests {
         @DisplayName("Cascade Delete prüfen")
         void testCascadeDelete() {
             Shop shop = new Shop("CascadeShop");
-            Product p1 = new Product("Sword", 50.0);
-            Product p2 = new Product("Shield", 60.0);
+            Product p1 = new Product("Sword", 50);
+            Product p2 = new Product("Shield", 60);
             shop.addProduct(p1);
             shop.addProduct(p2);
             shopRepository.saveAndFlush(shop);
@@ -136,18 +156,18 @@ class RepositoryIntegrationTests {
         @Test
         @DisplayName("Product speichern und abrufen")
         void testSaveAndFindProduct() {
-            Product product = new Product("Sword", 99.99, null);
+            Product product = new Product("Sword", 9999, null);
             Product saved = productRepository.save(product);
             Optional<Product> found = productRepository.findById(saved.getId());
             assertThat(found).isPresent();
             assertThat(found.get().getName()).isEqualTo("Sword");
-            assertThat(found.get().getPrice()).isEqualTo(99.99);
+            assertThat(found.get().getPrice()).isEqualTo(9999);
         }
 
         @Test
         @DisplayName("Product löschen")
         void testDeleteProduct() {
-            Product product = productRepository.save(new Product("Shield", 99.99, null));
+            Product product = productRepository.save(new Product("Shield", 9999, null));
             productRepository.delete(product);
             Optional<Product> found = productRepository.findById(product.getId());
             assertThat(found).isNotPresent();
@@ -156,7 +176,7 @@ class RepositoryIntegrationTests {
         @Test
         @DisplayName("existsByName prüfen")
         void testExistsByName() {
-            productRepository.save(new Product("Potion", 99.99, null));
+            productRepository.save(new Product("Potion", 9999, null));
             assertThat(productRepository.existsByName("Potion")).isTrue();
             assertThat(productRepository.existsByName("Elixir")).isFalse();
         }
@@ -164,10 +184,32 @@ class RepositoryIntegrationTests {
         @Test
         @DisplayName("findByName prüfen")
         void testFindByName() {
-            productRepository.save(new Product("Bow", 99.99, null));
+            productRepository.save(new Product("Bow", 9999, null));
             Optional<Product> found = productRepository.findByName("Bow");
             assertThat(found).isPresent();
             assertThat(found.get().getName()).isEqualTo("Bow");
         }
+
+        @Test
+        @DisplayName("Keyset-Pagination nach Preis")
+        void testFindPageOrderByPrice() {
+            Shop shop = shopRepository.save(new Shop("PagingShop"));
+            productRepository.saveAll(List.of(
+                    new Product("Ring", 30, shop),
+                    new Product("Amulet", 10, shop),
+                    new Product("Cloak", 20, shop),
+                    new Product("Boots", 20, shop)));
+            productRepository.save(new Product("Other", 5, null));
+
+            List<ProductView> first = productRepository.findPageOrderByPrice(shop.getId(), -1L, 0L, Limit.of(2));
+            assertThat(first).extracting(ProductView::price).containsExactly(10L, 20L);
+            assertThat(first).extracting(ProductView::shopId).containsOnly(shop.getId());
+
+            ProductView last = first.get(1);
+            List<ProductView> second = productRepository.findPageOrderByPrice(shop.getId(), last.price(), last.id(), Limit.of(2));
+            assertThat(second).hasSize(2);
+            assertThat(second).extracting(ProductView::price).containsExactly(20L, 30L);
+            assertThat(second).doesNotContain(last);
+        }
     }
 }
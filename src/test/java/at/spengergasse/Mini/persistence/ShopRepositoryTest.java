@@ -25,8 +25,8 @@ class ShopRepositoryTest {
         Shop shop = new Shop("SuperShop");
         shopRepository.save(shop);
 
-        Product product1 = new Product("Apple", 1.5, shop);
-        Product product2 = new Product("Banana", 2.0, shop);
+        Product product1 = new Product("Apple", 150, shop);
+        Product product2 = new Product("Banana", 200, shop);
 
         productRepository.saveAll(List.of(product1, product2));
 
@@ -0,0 +1,98 @@
+package at.spengergasse.Mini.service;
+
+import at.spengergasse.Mini.persistence.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PriceIndexTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private PriceIndex priceIndex;
+
+    @BeforeEach
+    void setUp() {
+        priceIndex = new PriceIndex(productRepository, 10, true);
+        // (Preis, id), sortiert wie aus idx_product_shop_price
+        lenient().when(productRepository.findPriceEntries(1L)).thenReturn(List.of(
+                new Object[]{100L, 7L},
+                new Object[]{250L, 3L},
+                new Object[]{250L, 9L},
+                new Object[]{900L, 1L}));
+    }
+
+    @Test
+    @DisplayName("Grenzen sind inklusive, gleiche Preise bleiben nach id sortiert")
+    void testRangeWithDuplicates() {
+        PriceIndex.Range range = priceIndex.find(1L, 250, 900, 0, 10);
+        assertThat(range.total()).isEqualTo(3);
+        assertThat(range.ids()).containsExactly(3L, 9L, 1L);
+
+        assertThat(priceIndex.find(1L, 101, 249, 0, 10).total()).isZero();
+        assertThat(priceIndex.find(1L, 0, 1000, 1, 2).ids()).containsExactly(3L, 9L);
+        assertThat(priceIndex.find(1L, 0, 1000, 10, 2).ids()).isEmpty();
+
+        verify(productRepository, times(1)).findPriceEntries(1L);
+    }
+
+    @Test
+    @DisplayName("Preisänderungen werden eingemischt, ohne den Index neu aufzubauen")
+    void testIncrementalChanges() {
+        priceIndex.find(1L, 0, 1000, 0, 10);
+
+        // ohne Transaktion sofort wirksam
+        priceIndex.added(1L, 5L, 300);
+        priceIndex.priceChanged(1L, 7L, 100, 950);
+        priceIndex.removed(1L, 3L, 250);
+        priceIndex.added(1L, new long[]{2L, 4L}, new long[]{900, 10});
+
+        assertThat(priceIndex.find(1L, 0, 1000, 0, 10).ids()).containsExactly(4L, 9L, 5L, 1L, 2L, 7L);
+        verify(productRepository, times(1)).findPriceEntries(1L);
+    }
+
+    @Test
+    @DisplayName("Ein schon enthaltenes Paar wird nicht doppelt eingefügt")
+    void testChangesAreIdempotent() {
+        priceIndex.find(1L, 0, 1000, 0, 10);
+
+        priceIndex.added(1L, 9L, 250);
+        priceIndex.removed(1L, 42L, 500);
+
+        assertThat(priceIndex.find(1L, 0, 1000, 0, 10).ids()).containsExactly(7L, 3L, 9L, 1L);
+    }
+
+    @Test
+    @DisplayName("Nur das Löschen des Shops verwirft den Snapshot")
+    void testRebuildAfterShopDeleted() {
+        priceIndex.find(1L, 0, 1000, 0, 10);
+        priceIndex.shopDeleted(1L);
+        priceIndex.find(1L, 0, 1000, 0, 10);
+
+        verify(productRepository, times(2)).findPriceEntries(1L);
+    }
+
+    @Test
+    @DisplayName("Ohne single-instance fragt jede Abfrage die Datenbank, kein Snapshot")
+    void testMultiInstanceQueriesTheDatabase() {
+        PriceIndex shared = new PriceIndex(productRepository, 10, false);
+        when(productRepository.findIdsInPriceRange(1L, 250, 900)).thenReturn(List.of(3L, 9L, 1L));
+
+        shared.added(1L, 5L, 300);
+        PriceIndex.Range range = shared.find(1L, 250, 900, 1, 10);
+
+        assertThat(range.total()).isEqualTo(3);
+        assertThat(range.ids()).containsExactly(9L, 1L);
+        verify(productRepository, never()).findPriceEntries(anyLong());
+    }
+}
@@ -0,0 +1,80 @@
+package at.spengergasse.Mini.service;
+
+import at.spengergasse.Mini.persistence.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductSearchIndexTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private ProductSearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() {
+        searchIndex = new ProductSearchIndex(productRepository);
+        when(productRepository.findAllIdsAndNames()).thenReturn(List.of(
+                new Object[]{1L, "Sword"},
+                new Object[]{2L, "Sword of Fire"},
+                new Object[]{3L, "Shield"},
+                new Object[]{4L, "Swamp Boots"}));
+        searchIndex.warmUp();
+    }
+
+    @Test
+    @DisplayName("Präfix-Treffer unabhängig von Groß-/Kleinschreibung, alphabetisch")
+    void testPrefix() {
+        assertThat(searchIndex.search("SW", 10)).containsExactly(4L, 1L, 2L);
+        assertThat(searchIndex.search("sword", 1)).containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("Tippfehler werden über Trigramme + Editierdistanz gefunden")
+    void testFuzzy() {
+        assertThat(searchIndex.search("swrod", 10)).containsExactly(1L, 2L);
+        assertThat(searchIndex.search("sheild", 10)).containsExactly(3L);
+        assertThat(searchIndex.search("axe", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Änderungen während des Warm-ups überschreiben den älteren Snapshot nicht")
+    void testChangesDuringWarmUpAreReplayed() {
+        ProductSearchIndex warming = new ProductSearchIndex(productRepository);
+        when(productRepository.findAllIdsAndNames()).thenAnswer(invocation -> {
+            // gleichzeitig committet, nachdem der Snapshot gelesen wurde
+            warming.productRemoved(1L);
+            warming.productRenamed(3L, "Buckler");
+            return List.of(
+                    new Object[]{1L, "Sword"},
+                    new Object[]{3L, "Shield"});
+        });
+
+        warming.warmUp();
+
+        assertThat(warming.search("sword", 10)).isEmpty();
+        assertThat(warming.search("shield", 10)).isEmpty();
+        assertThat(warming.search("buck", 10)).containsExactly(3L);
+    }
+
+    @Test
+    @DisplayName("Umbenennen und Löschen halten den Index aktuell")
+    void testMaintenance() {
+        searchIndex.productRenamed(3L, "Buckler"); // ohne Transaktion sofort wirksam
+        searchIndex.productRemoved(1L);
+
+        assertThat(searchIndex.search("buck", 10)).containsExactly(3L);
+        assertThat(searchIndex.search("shield", 10)).isEmpty();
+        assertThat(searchIndex.search("sword", 10)).containsExactly(2L);
+    }
+}
@@ -1,8 +1,109 @@
 package at.spengergasse.Mini.service;
+import at.spengergasse.Mini.model.Product;
+import at.spengergasse.Mini.model.Shop;
+import at.spengergasse.Mini.persistence.ProductRepository;
+import at.spengergasse.Mini.persistence.ShopRepository;
+import at.spengergasse.Mini.validation.Guard;
+import at.spengergasse.Mini.validation.NameIndex;
+import at.spengergasse.Mini.viewmodel.BulkImportResponse;
+import at.spengergasse.Mini.viewmodel.ProductRequest;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class ShopServiceTests {
 
-}
\ No newline at end of file
+    @Mock
+    private ShopRepository shopRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ProductService productService;
+
+    @Mock
+    private NameIndex nameIndex;
+
+    @Mock
+    private ProductSearchIndex searchIndex;
+
+    @Mock
+    private CatalogStats catalogStats;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private ShopService shopService;
+
+    @BeforeEach
+    void setUp() {
+        CatalogVersions catalogVersions = new CatalogVersions();
+        shopService = new ShopService(shopRepository, productRepository, productService,
+                new Guard(productRepository, nameIndex), nameIndex, catalogVersions, catalogStats,
+                new PriceIndex(productRepository, 100, true), searchIndex, entityManager);
+        ReflectionTestUtils.setField(shopService, "maxBulkItems", 100);
+        ReflectionTestUtils.setField(shopService, "batchSize", 500);
+    }
+
+    @Test
+    @DisplayName("Bulk-Import meldet Fehler je Eintrag und prüft Namen mengenbasiert")
+    void testImportProductsReportsErrorsPerItem() {
+        when(shopRepository.existsById(1L)).thenReturn(true);
+        when(shopRepository.getReferenceById(1L)).thenReturn(new Shop("BulkShop"));
+        when(productRepository.findExistingNames(any())).thenReturn(List.of("Taken"));
+        AtomicLong ids = new AtomicLong();
+        when(productRepository.save(any(Product.class))).thenAnswer(invocation -> {
+            Product product = invocation.getArgument(0);
+            product.setId(ids.incrementAndGet()); // wie die Sequence beim persist
+            return product;
+        });
+
+        BulkImportResponse result = shopService.importProducts(1L, List.of(
+                new ProductRequest("Apple", 100L),
+                new ProductRequest("Apple", 200L),   // doppelt im Import
+                new ProductRequest("Pear", -5L),     // ungültiger Preis
+                new ProductRequest("Taken", 10L),    // existiert bereits
+                new ProductRequest("Banana", 50L)));
+
+        assertThat(result.received()).isEqualTo(5);
+        assertThat(result.imported()).isEqualTo(2);
+        assertThat(result.errors()).extracting(BulkImportResponse.Error::index).containsExactly(1, 2, 3);
+
+        verify(productRepository, times(2)).save(any(Product.class));
+        verify(productRepository, times(1)).findExistingNames(any());
+        verify(productRepository, never()).findByName(anyString());
+    }
+
+    @Test
+    @DisplayName("Update im Shop lädt das Produkt nur einmal und reicht es an ProductService weiter")
+    void testUpdateProductInShopLoadsProductOnce() {
+        Shop shop = new Shop("UpdateShop");
+        shop.setId(1L);
+        Product product = new Product("Elixir", 20, shop);
+        ProductRequest request = new ProductRequest("Elixir", 25L);
+        when(shopRepository.existsById(1L)).thenReturn(true);
+        when(productRepository.findById(7L)).thenReturn(Optional.of(product));
+        when(productService.updateProduct(product, request)).thenReturn(product);
+
+        assertThat(shopService.updateProductInShop(1L, 7L, request)).isSameAs(product);
+
+        verify(productRepository, times(1)).findById(7L);
+        verify(productService).updateProduct(product, request);
+    }
+}
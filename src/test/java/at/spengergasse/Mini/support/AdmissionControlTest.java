@@ -0,0 +1,128 @@
+package at.spengergasse.Mini.support;
+
+import at.spengergasse.Mini.exceptions.OverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdmissionControlTest {
+
+    static class Endpoints {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Bulkhead(EndpointClass.EXPENSIVE)
+        public String deleteShop() throws InterruptedException {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return "deleted";
+        }
+
+        @Bulkhead(EndpointClass.READ)
+        public String getShop() {
+            return "shop";
+        }
+
+        @Bulkhead(EndpointClass.EXPENSIVE)
+        public ResponseEntity<StreamingResponseBody> export() {
+            return ResponseEntity.ok(out -> out.write('x'));
+        }
+    }
+
+    private SimpleMeterRegistry registry;
+    private Endpoints target;
+    private Endpoints endpoints;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("minishop.bulkhead.interval-ms", "50")
+                .withProperty("minishop.bulkhead.expensive.max-concurrent", "1")
+                .withProperty("minishop.bulkhead.expensive.max-queue", "1")
+                .withProperty("minishop.bulkhead.expensive.target-queue-ms", "10")
+                .withProperty("minishop.bulkhead.expensive.max-queue-ms", "100");
+
+        target = new Endpoints();
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new AdmissionControl(registry, environment));
+        endpoints = factory.getProxy();
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        target.release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Voller EXPENSIVE-Bulkhead weist nach max-queue-ms ab, Lesezugriffe laufen weiter")
+    void testExpensiveCallsDoNotBlockReads() throws Exception {
+        executor.submit(endpoints::deleteShop);
+        assertThat(target.started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> endpoints.deleteShop())
+                .isInstanceOf(OverloadedException.class)
+                .satisfies(e -> assertThat(((OverloadedException) e).getRetryAfterSeconds()).isGreaterThanOrEqualTo(1));
+        assertThat(registry.get("minishop.bulkhead.rejected").tag("reason", "timeout").counter().count()).isEqualTo(1);
+
+        assertThat(endpoints.getShop()).isEqualTo("shop");
+    }
+
+    @Test
+    @DisplayName("Nach dauerhaft zu langer Wartezeit wird sofort abgewiesen, bis ein Request wieder durchkommt")
+    void testShedsWhileQueueTimeStaysAboveTarget() throws Exception {
+        executor.submit(endpoints::deleteShop);
+        assertThat(target.started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // Zwei Timeouts im Abstand >= interval: Wartezeit bleibt über dem Ziel -> Überlast
+        assertThatThrownBy(() -> endpoints.deleteShop()).isInstanceOf(OverloadedException.class);
+        assertThatThrownBy(() -> endpoints.deleteShop()).isInstanceOf(OverloadedException.class);
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> endpoints.deleteShop()).isInstanceOf(OverloadedException.class);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(50);
+        assertThat(registry.get("minishop.bulkhead.rejected").tag("reason", "overloaded").counter().count()).isEqualTo(1);
+
+        // Permit wieder frei -> der nächste Request kommt ohne Warten durch und beendet die Überlast
+        target.release.countDown();
+        Thread.sleep(50);
+        assertThat(endpoints.deleteShop()).isEqualTo("deleted");
+    }
+
+    @Test
+    @DisplayName("Streaming-Body hält den Permit bis zum Ende des Schreibens")
+    void testStreamingBodyHoldsPermit() throws Exception {
+        ResponseEntity<StreamingResponseBody> response = endpoints.export();
+        assertThat(registry.get("minishop.bulkhead.active").tag("class", "expensive").gauge().value()).isEqualTo(1);
+
+        // Methode ist zurück, der Stream läuft noch -> kein freier Platz
+        assertThatThrownBy(() -> endpoints.deleteShop()).isInstanceOf(OverloadedException.class);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        assertThat(out.toString()).isEqualTo("x");
+        assertThat(registry.get("minishop.bulkhead.active").tag("class", "expensive").gauge().value()).isZero();
+
+        target.release.countDown();
+        assertThat(endpoints.deleteShop()).isEqualTo("deleted");
+    }
+}
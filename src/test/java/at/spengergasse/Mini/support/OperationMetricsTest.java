@@ -0,0 +1,55 @@
+package at.spengergasse.Mini.support;
+
+import at.spengergasse.Mini.persistence.ProductRepository;
+import at.spengergasse.Mini.validation.Guard;
+import at.spengergasse.Mini.validation.NameIndex;
+import at.spengergasse.Mini.viewmodel.ShopRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@ExtendWith(MockitoExtension.class)
+class OperationMetricsTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private NameIndex nameIndex;
+
+    private SimpleMeterRegistry registry;
+    private Guard guard;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        AspectJProxyFactory factory = new AspectJProxyFactory(new Guard(productRepository, nameIndex));
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new OperationMetrics(registry));
+        guard = factory.getProxy();
+    }
+
+    @Test
+    @DisplayName("Jeder Aufruf wird mit Ergebnis getimt, Fehler zusätzlich gezählt")
+    void testTimerAndErrorCounter() {
+        guard.validateShop(new ShopRequest("WeaponShop"));
+        assertThatThrownBy(() -> guard.validateShop(null)).isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(registry.get("minishop.operation")
+                .tags("component", "Guard", "method", "validateShop", "outcome", "success").timer().count()).isEqualTo(1);
+        assertThat(registry.get("minishop.operation")
+                .tags("component", "Guard", "method", "validateShop", "outcome", "error").timer().count()).isEqualTo(1);
+        assertThat(registry.get("minishop.operation.errors")
+                .tags("exception", "IllegalArgumentException").counter().count()).isEqualTo(1);
+        assertThat(registry.get("minishop.operation.active")
+                .tags("component", "Guard", "method", "validateShop").gauge().value()).isZero();
+    }
+}
@@ -0,0 +1,66 @@
+package at.spengergasse.Mini.support;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OptimisticRetryTest {
+
+    static class ConflictingWriter {
+        int calls;
+        int conflicts;
+
+        @RetryOnConflict
+        public String write() {
+            if (++calls <= conflicts) {
+                throw new ObjectOptimisticLockingFailureException("Product", 1L);
+            }
+            return "ok";
+        }
+    }
+
+    private SimpleMeterRegistry registry;
+    private ConflictingWriter target;
+    private ConflictingWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        OptimisticRetry retry = new OptimisticRetry(registry);
+        ReflectionTestUtils.setField(retry, "maxAttempts", 3);
+        ReflectionTestUtils.setField(retry, "backoffMillis", 1L);
+
+        target = new ConflictingWriter();
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(retry);
+        writer = factory.getProxy();
+    }
+
+    @Test
+    @DisplayName("Konflikte werden wiederholt und gezählt")
+    void testRetriesUntilSuccess() {
+        target.conflicts = 2;
+
+        assertThat(writer.write()).isEqualTo("ok");
+        assertThat(target.calls).isEqualTo(3);
+        assertThat(registry.get("minishop.optimistic.conflicts").tag("outcome", "retried").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Nach max-attempts geht der Konflikt an den Aufrufer")
+    void testGivesUpAfterMaxAttempts() {
+        target.conflicts = 5;
+
+        assertThatThrownBy(() -> writer.write()).isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        assertThat(target.calls).isEqualTo(3);
+        assertThat(registry.get("minishop.optimistic.conflicts").tag("outcome", "exhausted").counter().count()).isEqualTo(1);
+    }
+}
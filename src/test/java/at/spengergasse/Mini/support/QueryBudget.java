@@ -0,0 +1,47 @@
+package at.spengergasse.Mini.support;
+
+// Query-Budget für Tests
+// ---------------------------------
+// Zählt die JDBC-Statements (Hibernate Statistics, prepareStatement-Aufrufe), die eine
+// Aktion auslöst, und schlägt fehl, wenn das Budget überschritten wird.
+// Damit fallen N+1-Selects (Nachladen je Zeile) sofort im Test auf.
+//
+//   QueryBudget budget = QueryBudget.of(entityManagerFactory);
+//   budget.atMost(2, "GET products", () -> mockMvc.perform(get("/api/shop/1/products")));
+//
+// Die Statistik ist global für die SessionFactory: Aktionen dürfen nicht parallel laufen.
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+public final class QueryBudget {
+
+    @FunctionalInterface
+    public interface Action<T> {
+        T run() throws Exception;
+    }
+
+    private final Statistics statistics;
+
+    private QueryBudget(Statistics statistics) {
+        this.statistics = statistics;
+    }
+
+    public static QueryBudget of(EntityManagerFactory entityManagerFactory) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        return new QueryBudget(statistics);
+    }
+
+    public <T> T atMost(long maxStatements, String description, Action<T> action) throws Exception {
+        long before = statistics.getPrepareStatementCount();
+        T result = action.run();
+        long used = statistics.getPrepareStatementCount() - before;
+
+        if (used > maxStatements) {
+            throw new AssertionError(description + ": " + used + " SQL-Statements, Budget ist " + maxStatements);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,91 @@
+package at.spengergasse.Mini.support;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    private SimpleMeterRegistry registry;
+    private SingleFlight singleFlight;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        singleFlight = new SingleFlight(registry);
+        executor = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Gleichzeitige Aufrufe mit demselben Schlüssel laden nur einmal")
+    void testConcurrentCallsShareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> singleFlight.execute("shop", 1L, () -> {
+                loads.incrementAndGet();
+                await(release);
+                return "Shop 1";
+            })));
+        }
+
+        // Warten, bis alle Follower am laufenden Load hängen
+        while (registry.find("minishop.singleflight.calls").tag("role", "follower").functionCounter() == null
+                || registry.get("minishop.singleflight.calls").tag("role", "follower").functionCounter().count() < CALLERS - 1) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("Shop 1");
+        }
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(registry.get("minishop.singleflight.ratio").tag("name", "shop").gauge().value())
+                .isEqualTo((double) (CALLERS - 1) / CALLERS);
+
+        // Danach ist der Schlüssel wieder frei: es wird nichts gecacht
+        assertThat(singleFlight.execute("shop", 1L, () -> "reloaded")).isEqualTo("reloaded");
+    }
+
+    @Test
+    @DisplayName("Exception des Loaders geht an den Aufrufer, der Schlüssel wird wieder frei")
+    void testFailureIsSharedAndKeyReleased() {
+        assertThatThrownBy(() -> singleFlight.execute("shop", 2L, () -> {
+            throw new IllegalStateException("DB down");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(singleFlight.execute("shop", 2L, () -> "ok")).isEqualTo("ok");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package at.spengergasse.Mini.validation;
+
+import at.spengergasse.Mini.persistence.ProductRepository;
+import at.spengergasse.Mini.persistence.ShopRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class NameIndexTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ShopRepository shopRepository;
+
+    private NameIndex nameIndex;
+
+    @BeforeEach
+    void setUp() {
+        nameIndex = new NameIndex(productRepository, shopRepository);
+        ReflectionTestUtils.setField(nameIndex, "enabled", true);
+    }
+
+    @Test
+    @DisplayName("Vor dem Warm-up muss immer die Datenbank gefragt werden")
+    void testUnknownBeforeWarmUp() {
+        assertThat(nameIndex.mightContainProduct("Sword")).isTrue();
+        assertThat(nameIndex.mightContainShop("WeaponShop")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Nach dem Warm-up sind freie Namen ohne Datenbank erkennbar")
+    void testWarmUpAndMaintenance() {
+        when(productRepository.findAllNames()).thenReturn(List.of("Sword"));
+        when(shopRepository.findAllShopNames()).thenReturn(List.of("WeaponShop"));
+        nameIndex.warmUp();
+
+        assertThat(nameIndex.mightContainProduct("Sword")).isTrue();
+        assertThat(nameIndex.mightContainProduct("Shield")).isFalse();
+        assertThat(nameIndex.mightContainShop("WeaponShop")).isTrue();
+
+        nameIndex.productRenamed("Sword", "Axe");
+        assertThat(nameIndex.mightContainProduct("Axe")).isTrue();
+        assertThat(nameIndex.mightContainProduct("Sword")).isFalse();
+
+        nameIndex.shopRemoved("WeaponShop");
+        assertThat(nameIndex.mightContainShop("WeaponShop")).isFalse();
+    }
+}